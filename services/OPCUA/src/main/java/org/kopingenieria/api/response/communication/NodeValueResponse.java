@@ -0,0 +1,22 @@
+package org.kopingenieria.api.response.communication;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import org.kopingenieria.domain.enums.communication.MessageStatusCode;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NodeValueResponse {
+    private String nodeId;
+    private Object value;
+    private boolean good;
+    private MessageStatusCode statusCode;
+    private long statusCodeValue;
+    private LocalDateTime sourceTimestamp;
+    private LocalDateTime serverTimestamp;
+    private Boolean cached;
+    private Long ageMillis;
+}
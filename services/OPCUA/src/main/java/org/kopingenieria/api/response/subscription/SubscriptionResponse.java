@@ -0,0 +1,28 @@
+package org.kopingenieria.api.response.subscription;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import org.kopingenieria.domain.enums.communication.MessageStatusCode;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SubscriptionResponse {
+    private String subscriptionId;
+    private String clientId;
+    private String name;
+    private List<Long> serverSubscriptionIds;
+    private int shardCount;
+    private Double revisedPublishingInterval;
+    private int monitoredItemCount;
+    private int recreatedShardCount;
+    private int dataLossCount;
+    private Map<String, MessageStatusCode> failedItems;
+    private boolean success;
+    private String message;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,41 @@
+package org.kopingenieria.application.monitoring.health;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Data;
+import org.kopingenieria.domain.enums.connection.CircuitState;
+import org.kopingenieria.domain.enums.connection.ConnectionStatus;
+import java.time.LocalDateTime;
+
+/**
+ * Estado del circuit breaker de un endpoint. Las fechas quedan a null mientras no haya
+ * ocurrido el evento correspondiente.
+ */
+@Data
+@Builder
+public class CircuitHealth {
+
+    @NotNull(message = "El endpoint no puede ser nulo")
+    private String endpoint;
+
+    @NotNull(message = "El estado no puede ser nulo")
+    private ConnectionStatus status;
+
+    @NotNull(message = "El estado del circuito no puede ser nulo")
+    private CircuitState circuitState;
+
+    private LocalDateTime lastSucceeded;
+
+    private LocalDateTime lastFailed;
+
+    private LocalDateTime lastOpened;
+
+    @NotNull(message = "El contador no puede ser nulo")
+    private Integer consecutiveFailures;
+
+    @NotNull(message = "El contador no puede ser nulo")
+    private Integer failureCount;
+
+    @NotNull(message = "El contador no puede ser nulo")
+    private Integer openCount;
+}
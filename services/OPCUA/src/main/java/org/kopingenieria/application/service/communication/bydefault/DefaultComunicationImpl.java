@@ -1,7 +1,86 @@
 package org.kopingenieria.application.service.communication.bydefault;
 
+import lombok.RequiredArgsConstructor;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.kopingenieria.api.request.communication.CommunicationRequest;
+import org.kopingenieria.api.response.communication.CommunicationResponse;
+import org.kopingenieria.api.response.communication.NodeValueResponse;
+import org.kopingenieria.application.service.communication.component.BatchReadEngine;
+import org.kopingenieria.application.service.communication.component.BatchWriteEngine;
+import org.kopingenieria.application.service.communication.component.ComunicationSupport;
+import org.kopingenieria.application.service.communication.component.CurrentValueCache;
+import org.kopingenieria.application.service.pool.clients.bydefault.OpcUaDefaultPool;
+import org.kopingenieria.exception.exceptions.ComunicationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-
+@Service
+@RequiredArgsConstructor
 public class DefaultComunicationImpl implements DefaultComunication {
 
+    private static final String MAX_AGE_PARAMETER = "maxAge";
+
+    private final OpcUaDefaultPool defaultPool;
+    private final BatchReadEngine readEngine;
+    private final BatchWriteEngine writeEngine;
+    private final CurrentValueCache valueCache;
+
+    @Value("${opcua.communication.readTimeout:5000}")
+    private long readTimeout;
+
+    @Value("${opcua.communication.writeTimeout:5000}")
+    private long writeTimeout;
+
+    @Override
+    public CommunicationResponse lectura(CommunicationRequest request) throws Exception {
+        ComunicationSupport.requireNodeIds(request);
+        OpcUaDefaultPool.PooledOpcUaClient pooledClient = defaultPool.obtenerCliente(request.getClientId())
+                .orElseThrow(() -> new ComunicationException("No se pudo obtener un cliente del pool"));
+        try {
+            // Sin maxAge se aplica el configurado para la cache; un maxAge de 0 obliga a leer del servidor
+            double maxAge = valueCache.effectiveMaxAge(ComunicationSupport.doubleParameter(request, MAX_AGE_PARAMETER));
+            List<NodeValueResponse> results = valueCache.read(request.getClientId(), request.getNodeIds(), maxAge,
+                            missing -> readEngine.read(
+                                    pooledClient.getClient(), missing, maxAge, TimestampsToReturn.Both))
+                    .get(readTimeout, TimeUnit.MILLISECONDS);
+            return ComunicationSupport.buildResponse("Lectura",
+                    ComunicationSupport.endpointOf(pooledClient.getClient()), results);
+        } catch (TimeoutException e) {
+            throw new ComunicationException("Tiempo límite de lectura superado", e);
+        } finally {
+            defaultPool.liberarCliente(pooledClient);
+        }
+    }
+
+    @Override
+    public CommunicationResponse escritura(CommunicationRequest request) throws Exception {
+        ComunicationSupport.requireNodeIds(request);
+        List<Object> values = ComunicationSupport.writeValues(request);
+        OpcUaDefaultPool.PooledOpcUaClient pooledClient = defaultPool.obtenerCliente(request.getClientId())
+                .orElseThrow(() -> new ComunicationException("No se pudo obtener un cliente del pool"));
+        try {
+            List<NodeValueResponse> results = writeEngine.write(
+                            pooledClient.getClient(), request.getNodeIds(), values)
+                    .get(writeTimeout, TimeUnit.MILLISECONDS);
+            return ComunicationSupport.buildResponse("Escritura",
+                    ComunicationSupport.endpointOf(pooledClient.getClient()), results);
+        } catch (TimeoutException e) {
+            throw new ComunicationException("Tiempo límite de escritura superado", e);
+        } finally {
+            defaultPool.liberarCliente(pooledClient);
+        }
+    }
+
+    @Override
+    public CommunicationResponse modificacion(CommunicationRequest request) throws Exception {
+        throw new ComunicationException("Operación de modificación no soportada");
+    }
+
+    @Override
+    public CommunicationResponse eliminacion(CommunicationRequest request) throws Exception {
+        throw new ComunicationException("Operación de eliminación no soportada");
+    }
 }
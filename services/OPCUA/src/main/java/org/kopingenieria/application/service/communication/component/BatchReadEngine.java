@@ -0,0 +1,189 @@
+package org.kopingenieria.application.service.communication.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.kopingenieria.api.response.communication.NodeValueResponse;
+import org.kopingenieria.domain.enums.communication.Operation;
+import org.kopingenieria.util.helper.LivenessTracker;
+import org.kopingenieria.util.helper.NodeIdResolver;
+import org.kopingenieria.util.helper.OperationLimitsRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Lee el atributo Value de muchos nodos agrupandolos en el menor numero posible
+ * de llamadas al servicio Read, en lugar de una llamada por nodo.
+ * <p>
+ * Las lecturas concurrentes del mismo nodo en el mismo endpoint comparten una unica
+ * peticion en vuelo: quien llega mientras otra lectura del nodo esta pendiente
+ * recibe el resultado de esa lectura en lugar de lanzar otra, siempre que el maxAge de
+ * la lectura en curso no sea mayor que el suyo. La clave es el NodeId resuelto, de modo
+ * que las formas {@code ns=} y {@code nsu=} del mismo nodo tambien se comparten.
+ */
+@Slf4j
+@Component("batchReadEngine")
+@RequiredArgsConstructor
+public class BatchReadEngine {
+
+    private final NodeIdResolver nodeIdResolver;
+    private final OperationLimitsRegistry operationLimits;
+    private final LivenessTracker livenessTracker;
+    private final Map<String, InFlightRead> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${opcua.communication.maxNodesPerRead:1000}")
+    private int maxNodesPerRead;
+
+    @Value("${opcua.communication.singleFlight:true}")
+    private boolean singleFlight;
+
+    private record InFlightRead(double maxAge, CompletableFuture<DataValue> value) {
+    }
+
+    public CompletableFuture<List<NodeValueResponse>> read(OpcUaClient client, List<String> nodeIds,
+                                                           double maxAge, TimestampsToReturn timestamps) {
+        return nodeIdResolver.resolve(client, nodeIds)
+                .thenCompose(resolved -> read(client, nodeIds, resolved, maxAge, timestamps));
+    }
+
+    private CompletableFuture<List<NodeValueResponse>> read(OpcUaClient client, List<String> nodeIds,
+                                                            List<Optional<NodeId>> resolved,
+                                                            double maxAge, TimestampsToReturn timestamps) {
+        String endpoint = ComunicationSupport.endpointOf(client);
+        List<CompletableFuture<DataValue>> values = new ArrayList<>(nodeIds.size());
+        List<String> ownedKeys = new ArrayList<>();
+        List<InFlightRead> owned = new ArrayList<>();
+        List<ReadValueId> readValueIds = new ArrayList<>();
+        int shared = 0;
+
+        for (int i = 0; i < nodeIds.size(); i++) {
+            Optional<NodeId> nodeId = resolved.get(i);
+            if (nodeId.isEmpty()) {
+                values.add(CompletableFuture.completedFuture(new DataValue(new StatusCode(StatusCodes.Bad_NodeIdInvalid))));
+                continue;
+            }
+            String key = key(endpoint, nodeId.get(), timestamps);
+            InFlightRead pending = new InFlightRead(maxAge, new CompletableFuture<>());
+            InFlightRead existing = singleFlight ? inFlight.putIfAbsent(key, pending) : null;
+            if (existing != null && existing.maxAge() <= maxAge) {
+                values.add(existing.value());
+                shared++;
+                continue;
+            }
+            if (existing != null) {
+                // La lectura en curso admite valores mas antiguos de los que pide este llamador;
+                // la nueva, mas estricta, pasa a ser la compartida
+                inFlight.replace(key, existing, pending);
+            }
+            values.add(pending.value());
+            ownedKeys.add(key);
+            owned.add(pending);
+            readValueIds.add(new ReadValueId(nodeId.get(), AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE));
+        }
+
+        int sharedCount = shared;
+        CompletableFuture<Integer> chunkSize;
+        try {
+            chunkSize = operationLimits.chunkSize(client, Operation.READ, maxNodesPerRead);
+        } catch (RuntimeException e) {
+            chunkSize = CompletableFuture.failedFuture(e);
+        }
+        return chunkSize.thenCompose(size -> {
+            for (int from = 0; from < readValueIds.size(); from += size) {
+                int to = Math.min(from + size, readValueIds.size());
+                readChunk(client, maxAge, timestamps,
+                        readValueIds.subList(from, to), ownedKeys.subList(from, to), owned.subList(from, to));
+            }
+            log.debug("Lectura de {} nodos en bloques de {} ({} compartidas con lecturas en curso)",
+                    readValueIds.size(), size, sharedCount);
+
+            return CompletableFuture.allOf(values.toArray(new CompletableFuture[0]))
+                    .thenApply(v -> {
+                        List<NodeValueResponse> results = new ArrayList<>(nodeIds.size());
+                        for (int i = 0; i < nodeIds.size(); i++) {
+                            results.add(ComunicationSupport.toNodeValue(nodeIds.get(i), values.get(i).join()));
+                        }
+                        return results;
+                    });
+        }).whenComplete((results, ex) -> {
+            if (ex != null) {
+                // Si la lectura no llega a lanzarse o se interrumpe, las entradas propias no pueden
+                // quedar en vuelo: las lecturas posteriores del nodo esperarian para siempre
+                fail(ownedKeys, owned, ex);
+            }
+        });
+    }
+
+    private void readChunk(OpcUaClient client, double maxAge, TimestampsToReturn timestamps, List<ReadValueId> readValueIds,
+                           List<String> keys, List<InFlightRead> futures) {
+        CompletableFuture<ReadResponse> read;
+        try {
+            read = client.read(maxAge, timestamps, readValueIds);
+        } catch (RuntimeException e) {
+            read = CompletableFuture.failedFuture(e);
+        }
+        read
+                .handle((response, ex) -> {
+                    if (ex != null && OperationLimitsRegistry.isTooManyOperations(ex) && readValueIds.size() > 1) {
+                        // El servidor admite menos nodos por Read de los que anuncia: se reparte en bloques menores
+                        int reduced = operationLimits.backOff(client, Operation.READ, readValueIds.size());
+                        for (int from = 0; from < readValueIds.size(); from += reduced) {
+                            int to = Math.min(from + reduced, readValueIds.size());
+                            readChunk(client, maxAge, timestamps,
+                                    readValueIds.subList(from, to), keys.subList(from, to), futures.subList(from, to));
+                        }
+                    } else if (ex != null) {
+                        log.warn("Fallo la lectura de un bloque de {} nodos", futures.size(), ex);
+                        DataValue failure = new DataValue(ComunicationSupport.statusOf(ex));
+                        complete(keys, futures, i -> failure);
+                    } else {
+                        livenessTracker.touch(client);
+                        DataValue[] results = response.getResults();
+                        complete(keys, futures, i -> results != null && i < results.length
+                                ? results[i]
+                                : new DataValue(new StatusCode(StatusCodes.Bad_NoData)));
+                    }
+                    return null;
+                })
+                .exceptionally(ex -> {
+                    fail(keys, futures, ex);
+                    return null;
+                });
+    }
+
+    private void complete(List<String> keys, List<InFlightRead> futures,
+                          IntFunction<DataValue> valueAt) {
+        for (int i = 0; i < futures.size(); i++) {
+            // Se retira antes de completar para que las lecturas posteriores vuelvan al servidor
+            inFlight.remove(keys.get(i), futures.get(i));
+            futures.get(i).value().complete(valueAt.apply(i));
+        }
+    }
+
+    private void fail(List<String> keys, List<InFlightRead> futures, Throwable ex) {
+        for (int i = 0; i < futures.size(); i++) {
+            inFlight.remove(keys.get(i), futures.get(i));
+            futures.get(i).value().completeExceptionally(ex);
+        }
+    }
+
+    private String key(String endpoint, NodeId nodeId, TimestampsToReturn timestamps) {
+        return endpoint + "|" + nodeId.toParseableString() + "|" + AttributeId.Value.id() + "|" + timestamps;
+    }
+}
@@ -0,0 +1,124 @@
+package org.kopingenieria.application.service.communication.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteValue;
+import org.kopingenieria.api.response.communication.NodeValueResponse;
+import org.kopingenieria.domain.enums.communication.Operation;
+import org.kopingenieria.util.helper.LivenessTracker;
+import org.kopingenieria.util.helper.NodeIdResolver;
+import org.kopingenieria.util.helper.OperationLimitsRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Escribe pares nodo/valor agrupandolos en el menor numero posible de llamadas
+ * al servicio Write y devuelve el StatusCode de cada nodo.
+ */
+@Slf4j
+@Component("batchWriteEngine")
+@RequiredArgsConstructor
+public class BatchWriteEngine {
+
+    private final NodeIdResolver nodeIdResolver;
+    private final OperationLimitsRegistry operationLimits;
+    private final LivenessTracker livenessTracker;
+    @Value("${opcua.communication.maxNodesPerWrite:1000}")
+    private int maxNodesPerWrite;
+
+    public CompletableFuture<List<NodeValueResponse>> write(OpcUaClient client, List<String> nodeIds,
+                                                            List<Object> values) {
+        return nodeIdResolver.resolve(client, nodeIds)
+                .thenCompose(resolved -> write(client, nodeIds, resolved, values));
+    }
+
+    private CompletableFuture<List<NodeValueResponse>> write(OpcUaClient client, List<String> nodeIds,
+                                                             List<Optional<NodeId>> resolved, List<Object> values) {
+        NodeValueResponse[] results = new NodeValueResponse[nodeIds.size()];
+        List<Integer> positions = new ArrayList<>(nodeIds.size());
+        List<WriteValue> writeValues = new ArrayList<>(nodeIds.size());
+
+        for (int i = 0; i < nodeIds.size(); i++) {
+            Optional<NodeId> nodeId = resolved.get(i);
+            if (nodeId.isEmpty()) {
+                results[i] = ComunicationSupport.toNodeStatus(nodeIds.get(i), new StatusCode(StatusCodes.Bad_NodeIdInvalid));
+                continue;
+            }
+            positions.add(i);
+            writeValues.add(new WriteValue(nodeId.get(), AttributeId.Value.uid(), null, toDataValue(values.get(i))));
+        }
+
+        return operationLimits.chunkSize(client, Operation.WRITE, maxNodesPerWrite).thenCompose(chunkSize -> {
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (int from = 0; from < writeValues.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, writeValues.size());
+                chunks.add(writeChunk(client, results, nodeIds, positions.subList(from, to), writeValues.subList(from, to)));
+            }
+            log.debug("Escritura de {} nodos en {} peticiones Write", writeValues.size(), chunks.size());
+
+            return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+                    .thenApply(v -> Arrays.asList(results));
+        });
+    }
+
+    private CompletableFuture<Void> writeChunk(OpcUaClient client, NodeValueResponse[] results, List<String> nodeIds,
+                                               List<Integer> positions, List<WriteValue> writeValues) {
+        return client.write(writeValues)
+                .thenAccept(response -> {
+                    livenessTracker.touch(client);
+                    fillResults(results, nodeIds, positions, response.getResults());
+                })
+                .exceptionallyCompose(ex -> {
+                    if (OperationLimitsRegistry.isTooManyOperations(ex) && writeValues.size() > 1) {
+                        // El servidor admite menos nodos por Write de los que anuncia: se reparte en bloques menores
+                        int reduced = operationLimits.backOff(client, Operation.WRITE, writeValues.size());
+                        List<CompletableFuture<Void>> retries = new ArrayList<>();
+                        for (int from = 0; from < writeValues.size(); from += reduced) {
+                            int to = Math.min(from + reduced, writeValues.size());
+                            retries.add(writeChunk(client, results, nodeIds,
+                                    positions.subList(from, to), writeValues.subList(from, to)));
+                        }
+                        return CompletableFuture.allOf(retries.toArray(new CompletableFuture[0]));
+                    }
+                    log.warn("Fallo la escritura de un bloque de {} nodos", positions.size(), ex);
+                    StatusCode status = ComunicationSupport.statusOf(ex);
+                    positions.forEach(position ->
+                            results[position] = ComunicationSupport.toNodeStatus(nodeIds.get(position), status));
+                    return CompletableFuture.completedFuture(null);
+                });
+    }
+
+    private void fillResults(NodeValueResponse[] results, List<String> nodeIds,
+                             List<Integer> positions, StatusCode[] statusCodes) {
+        for (int i = 0; i < positions.size(); i++) {
+            int position = positions.get(i);
+            StatusCode status = statusCodes != null && i < statusCodes.length
+                    ? statusCodes[i]
+                    : new StatusCode(StatusCodes.Bad_NoData);
+            results[position] = ComunicationSupport.toNodeStatus(nodeIds.get(position), status);
+        }
+    }
+
+    private DataValue toDataValue(Object value) {
+        if (value instanceof DataValue dataValue) {
+            return dataValue;
+        }
+        if (value instanceof Variant variant) {
+            return DataValue.valueOnly(variant);
+        }
+        // Solo se envia el valor: muchos servidores rechazan escrituras con estado o marcas de tiempo
+        return DataValue.valueOnly(new Variant(value));
+    }
+}
@@ -0,0 +1,125 @@
+package org.kopingenieria.application.service.communication.component;
+
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.kopingenieria.api.request.communication.CommunicationRequest;
+import org.kopingenieria.api.response.communication.CommunicationResponse;
+import org.kopingenieria.api.response.communication.NodeValueResponse;
+import org.kopingenieria.domain.enums.communication.MessageStatusCode;
+import org.kopingenieria.exception.exceptions.ComunicationException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.CompletionException;
+
+public final class ComunicationSupport {
+
+    private ComunicationSupport() {}
+
+    public static void requireNodeIds(CommunicationRequest request) throws ComunicationException {
+        if (request == null || request.getNodeIds() == null || request.getNodeIds().isEmpty()) {
+            throw new ComunicationException("La lista de nodos es obligatoria");
+        }
+    }
+
+    public static OptionalDouble doubleParameter(CommunicationRequest request, String key) {
+        Map<String, Object> parameters = request.getOperationParameters();
+        if (parameters == null || !(parameters.get(key) instanceof Number number)) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(number.doubleValue());
+    }
+
+    public static List<Object> writeValues(CommunicationRequest request) throws ComunicationException {
+        List<String> nodeIds = request.getNodeIds();
+        Object value = request.getValue();
+        List<Object> values = new ArrayList<>(nodeIds.size());
+        if (value instanceof Map<?, ?> valuesByNode) {
+            for (String nodeId : nodeIds) {
+                if (!valuesByNode.containsKey(nodeId)) {
+                    throw new ComunicationException("No hay valor para el nodo " + nodeId);
+                }
+                values.add(valuesByNode.get(nodeId));
+            }
+        } else if (value instanceof List<?> valueList) {
+            if (valueList.size() != nodeIds.size()) {
+                throw new ComunicationException("El numero de valores no coincide con el numero de nodos");
+            }
+            values.addAll(valueList);
+        } else {
+            // Un unico valor se escribe en todos los nodos indicados
+            nodeIds.forEach(nodeId -> values.add(value));
+        }
+        return values;
+    }
+
+    public static String endpointOf(OpcUaClient client) {
+        return client.getConfig().getEndpoint().getEndpointUrl();
+    }
+
+    public static NodeValueResponse toNodeValue(String nodeId, DataValue dataValue) {
+        StatusCode status = dataValue.getStatusCode() != null ? dataValue.getStatusCode() : StatusCode.GOOD;
+        return NodeValueResponse.builder()
+                .nodeId(nodeId)
+                .value(dataValue.getValue() != null ? dataValue.getValue().getValue() : null)
+                .good(status.isGood())
+                .statusCode(MessageStatusCode.fromStatusCode(status.getValue()))
+                .statusCodeValue(status.getValue())
+                .sourceTimestamp(toLocalDateTime(dataValue.getSourceTime()))
+                .serverTimestamp(toLocalDateTime(dataValue.getServerTime()))
+                .build();
+    }
+
+    public static NodeValueResponse toNodeStatus(String nodeId, StatusCode status) {
+        return NodeValueResponse.builder()
+                .nodeId(nodeId)
+                .good(status.isGood())
+                .statusCode(MessageStatusCode.fromStatusCode(status.getValue()))
+                .statusCodeValue(status.getValue())
+                .build();
+    }
+
+    public static CommunicationResponse buildResponse(String operation, String endpoint,
+                                                      List<NodeValueResponse> results) {
+        Map<String, NodeValueResponse> responseData = new LinkedHashMap<>();
+        results.forEach(result -> responseData.put(result.getNodeId(), result));
+        long goodCount = results.stream().filter(NodeValueResponse::isGood).count();
+        boolean success = goodCount == results.size();
+        MessageStatusCode statusCode = success ? MessageStatusCode.GOOD : MessageStatusCode.UNSPECIFIED_ERROR;
+        return CommunicationResponse.builder()
+                .message(operation + " completada: " + goodCount + " de " + results.size() + " nodos correctos")
+                .statusCode(statusCode)
+                .statusCodeValue(statusCode.getCode())
+                .success(success)
+                .timestamp(LocalDateTime.now())
+                .serverEndpoint(endpoint)
+                .responseData(responseData)
+                .build();
+    }
+
+    public static StatusCode statusOf(Throwable ex) {
+        Throwable cause = ex;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof UaException uaException) {
+            return uaException.getStatusCode();
+        }
+        return new StatusCode(StatusCodes.Bad_CommunicationError);
+    }
+
+    private static LocalDateTime toLocalDateTime(DateTime dateTime) {
+        if (dateTime == null || dateTime.isNull()) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(dateTime.getJavaInstant(), ZoneId.systemDefault());
+    }
+}
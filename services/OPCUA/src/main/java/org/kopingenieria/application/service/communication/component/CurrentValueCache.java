@@ -0,0 +1,176 @@
+package org.kopingenieria.application.service.communication.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.kopingenieria.api.response.communication.NodeValueResponse;
+import org.kopingenieria.application.service.subscription.component.DataChangeListener;
+import org.kopingenieria.application.service.subscription.component.SubscriptionManagerComp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache del ultimo valor de los nodos monitorizados, alimentada por los monitored items.
+ * Las lecturas de nodos monitorizados con un valor mas reciente que el maxAge pedido se
+ * responden desde memoria; el resto se leen del servidor.
+ * <p>
+ * Los monitored items solo notifican cambios, asi que la edad de un valor se cuenta desde la
+ * ultima publicacion (datos o keep-alive) de su suscripcion si es posterior a su llegada: un
+ * nodo estable sigue sirviendose desde cache mientras la suscripcion siga publicando.
+ */
+@Slf4j
+@Component("currentValueCache")
+@RequiredArgsConstructor
+public class CurrentValueCache implements DataChangeListener {
+
+    private final SubscriptionManagerComp subscriptionManager;
+    private final Map<String, CachedValue> values = new ConcurrentHashMap<>();
+
+    @Value("${opcua.communication.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${opcua.communication.cache.maxAge:1000}")
+    private long defaultMaxAge;
+
+    @Value("${opcua.communication.cache.maxEntries:50000}")
+    private int maxEntries;
+
+    private record CachedValue(String clientId, String nodeId, DataValue value, long receivedAt) {
+        long ageMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - receivedAt);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        subscriptionManager.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptionManager.removeListener(this);
+        values.clear();
+    }
+
+    @Override
+    public void onDataChange(String clientId, String nodeId, DataValue value) {
+        if (!enabled) {
+            return;
+        }
+        values.put(key(clientId, nodeId), new CachedValue(clientId, nodeId, value, System.nanoTime()));
+        if (values.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    @Override
+    public void onMonitoredItemsRemoved(String clientId, List<String> nodeIds) {
+        nodeIds.forEach(nodeId -> {
+            if (!subscriptionManager.isMonitored(clientId, nodeId)) {
+                values.remove(key(clientId, nodeId));
+            }
+        });
+    }
+
+    /**
+     * maxAge con el que se atiende una lectura: el pedido o, si el llamador no indica ninguno,
+     * el configurado. Un maxAge de 0 obliga a leer del servidor.
+     */
+    public double effectiveMaxAge(OptionalDouble requested) {
+        return Math.max(requested.orElse(defaultMaxAge), 0.0);
+    }
+
+    /**
+     * Resuelve desde la cache los nodos con un valor valido y delega el resto en {@code reader},
+     * manteniendo el orden de {@code nodeIds}. Con un maxAge de 0 todo se lee del servidor.
+     */
+    public CompletableFuture<List<NodeValueResponse>> read(
+            String clientId, List<String> nodeIds, double maxAge,
+            Function<List<String>, CompletableFuture<List<NodeValueResponse>>> reader) {
+        long maxAgeMillis = (long) maxAge;
+        if (!enabled || maxAgeMillis <= 0) {
+            return reader.apply(nodeIds);
+        }
+
+        NodeValueResponse[] results = new NodeValueResponse[nodeIds.size()];
+        List<Integer> missingPositions = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < nodeIds.size(); i++) {
+            NodeValueResponse cached = lookup(clientId, nodeIds.get(i), maxAgeMillis);
+            if (cached != null) {
+                results[i] = cached;
+            } else {
+                missingPositions.add(i);
+                missing.add(nodeIds.get(i));
+            }
+        }
+        log.debug("Lectura de {} nodos: {} desde cache", nodeIds.size(), nodeIds.size() - missing.size());
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(results));
+        }
+        return reader.apply(missing).thenApply(read -> {
+            for (int i = 0; i < missingPositions.size(); i++) {
+                results[missingPositions.get(i)] = read.get(i);
+            }
+            return Arrays.asList(results);
+        });
+    }
+
+    private NodeValueResponse lookup(String clientId, String nodeId, long maxAge) {
+        String key = key(clientId, nodeId);
+        CachedValue cached = values.get(key);
+        if (cached == null) {
+            return null;
+        }
+        OptionalLong sincePublish = subscriptionManager.millisSinceLastPublish(clientId, nodeId);
+        if (sincePublish.isEmpty()) {
+            // El valor ya no se actualiza: se descarta para no servir datos congelados
+            values.remove(key, cached);
+            return null;
+        }
+        long age = Math.min(cached.ageMillis(), sincePublish.getAsLong());
+        if (age > maxAge) {
+            return null;
+        }
+        NodeValueResponse response = ComunicationSupport.toNodeValue(nodeId, cached.value());
+        response.setCached(true);
+        response.setAgeMillis(age);
+        return response;
+    }
+
+    private synchronized void evict() {
+        if (values.size() <= maxEntries) {
+            return;
+        }
+        int before = values.size();
+        values.values().removeIf(cached -> !subscriptionManager.isMonitored(cached.clientId(), cached.nodeId()));
+        int target = maxEntries - maxEntries / 10;
+        if (values.size() > target) {
+            // Solo quedan nodos monitorizados: se descartan los valores mas antiguos
+            values.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().receivedAt()))
+                    .limit(values.size() - target)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(values::remove);
+        }
+        log.debug("Cache de valores reducida de {} a {} entradas", before, values.size());
+    }
+
+    private String key(String clientId, String nodeId) {
+        return clientId + "|" + nodeId;
+    }
+}
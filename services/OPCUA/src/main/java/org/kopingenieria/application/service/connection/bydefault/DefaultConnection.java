@@ -23,4 +23,6 @@ public interface DefaultConnection extends AutoCloseable {
     CompletableFuture<ConnectionResponse>linearreconnection()throws Exception;
 
     CompletableFuture<ConnectionResponse> ping()throws Exception;
+
+    CompletableFuture<ConnectionResponse> ping(boolean force)throws Exception;
 }
@@ -0,0 +1,27 @@
+package org.kopingenieria.application.service.connection.bydefault;
+
+import lombok.RequiredArgsConstructor;
+import org.kopingenieria.application.service.connection.component.ReconnectionScheduler;
+import org.kopingenieria.application.service.pool.clients.bydefault.OpcUaDefaultPool;
+import org.kopingenieria.util.helper.LivenessTracker;
+import org.kopingenieria.util.helper.NodeIdResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crea las conexiones de los pools con sus colaboradores ya resueltos; los pools las
+ * instancian fuera de Spring y la inyeccion por campo no llegaria a ellas.
+ */
+@Component("defaultConnectionFactory")
+@RequiredArgsConstructor
+public class DefaultConnectionFactory {
+
+    private final OpcUaDefaultPool defaultPool;
+    private final NodeIdResolver nodeIdResolver;
+    private final ReconnectionScheduler reconnectionScheduler;
+    private final LivenessTracker livenessTracker;
+
+    public DefaultConnectionImpl create(String clientId) {
+        return new DefaultConnectionImpl(clientId, defaultPool, nodeIdResolver, reconnectionScheduler,
+                livenessTracker);
+    }
+}
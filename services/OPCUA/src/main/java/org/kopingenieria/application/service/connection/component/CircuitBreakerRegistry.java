@@ -0,0 +1,156 @@
+package org.kopingenieria.application.service.connection.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kopingenieria.application.monitoring.health.CircuitHealth;
+import org.kopingenieria.domain.enums.connection.CircuitState;
+import org.kopingenieria.domain.enums.connection.ConnectionStatus;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Un circuit breaker por endpoint.
+ * <p>
+ * Tras {@code failureThreshold} fallos de conexion seguidos el circuito se abre y las
+ * peticiones a ese endpoint fallan al momento. Pasado {@code openDuration} se admite una
+ * sola conexion de prueba (semiabierto): si conecta, el circuito se cierra; si falla, se
+ * vuelve a abrir con el doble de espera, hasta {@code maxOpenDuration}. Los umbrales y
+ * esperas se leen del registro en cada apertura, asi que {@link #configure} tambien afecta
+ * a los circuitos ya creados.
+ * <p>
+ * Los pools de conexiones se crean tambien fuera de Spring, por eso hay una unica instancia
+ * compartida, que es la que se registra como bean.
+ */
+@Slf4j
+public final class CircuitBreakerRegistry {
+
+    private static final class Holder {
+        private static final CircuitBreakerRegistry SHARED = new CircuitBreakerRegistry();
+    }
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private volatile int failureThreshold = 5;
+    private volatile long openDuration = 5000;
+    private volatile long maxOpenDuration = 60000;
+
+    // Paquete: las pruebas crean su propio registro sin tocar el compartido
+    CircuitBreakerRegistry() {
+    }
+
+    public static CircuitBreakerRegistry shared() {
+        return Holder.SHARED;
+    }
+
+    public void configure(int failureThreshold, long openDuration, long maxOpenDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = Math.max(1, openDuration);
+        this.maxOpenDuration = Math.max(this.openDuration, maxOpenDuration);
+    }
+
+    public CircuitBreaker forEndpoint(String endpoint) {
+        return breakers.computeIfAbsent(endpoint, CircuitBreaker::new);
+    }
+
+    public CircuitHealth healthOf(String endpoint) {
+        CircuitBreaker breaker = forEndpoint(endpoint);
+        synchronized (breaker) {
+            return CircuitHealth.builder()
+                    .endpoint(endpoint)
+                    .status(breaker.state == CircuitState.CLOSED ? ConnectionStatus.UNKNOWN : ConnectionStatus.CIRCUIT_OPEN)
+                    .circuitState(breaker.state)
+                    .lastSucceeded(breaker.lastSucceeded)
+                    .lastFailed(breaker.lastFailed)
+                    .lastOpened(breaker.lastOpened)
+                    .consecutiveFailures(breaker.consecutiveFailures)
+                    .failureCount(breaker.failureCount)
+                    .openCount(breaker.openCount)
+                    .build();
+        }
+    }
+
+    public final class CircuitBreaker {
+        private final String endpoint;
+        private CircuitState state = CircuitState.CLOSED;
+        private int consecutiveFailures;
+        private int failureCount;
+        private int failedProbes;
+        private long currentOpenDuration;
+        private long retryAt;
+        private LocalDateTime lastOpened;
+        private LocalDateTime lastSucceeded;
+        private LocalDateTime lastFailed;
+        private int openCount;
+
+        private CircuitBreaker(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * Indica, sin consumir la prueba, si ahora mismo se puede intentar usar el endpoint.
+         */
+        public synchronized boolean allowsRequests() {
+            return state == CircuitState.CLOSED || System.currentTimeMillis() >= retryAt;
+        }
+
+        /**
+         * Permiso para intentar una conexion. Con el circuito abierto solo se concede como prueba
+         * una vez vencida la espera; si la prueba no informa de su resultado se concede otra.
+         */
+        public synchronized boolean tryAcquire() {
+            if (state == CircuitState.CLOSED) {
+                return true;
+            }
+            long now = System.currentTimeMillis();
+            if (now < retryAt) {
+                return false;
+            }
+            state = CircuitState.HALF_OPEN;
+            retryAt = now + currentOpenDuration;
+            log.info("Circuito de {} semiabierto: se admite una conexion de prueba", endpoint);
+            return true;
+        }
+
+        public synchronized void onSuccess() {
+            if (state != CircuitState.CLOSED) {
+                log.info("Circuito de {} cerrado", endpoint);
+            }
+            state = CircuitState.CLOSED;
+            consecutiveFailures = 0;
+            failedProbes = 0;
+            lastSucceeded = LocalDateTime.now();
+        }
+
+        public synchronized void onFailure() {
+            failureCount++;
+            lastFailed = LocalDateTime.now();
+            if (state == CircuitState.HALF_OPEN) {
+                failedProbes++;
+                open();
+            } else if (state == CircuitState.CLOSED && ++consecutiveFailures >= failureThreshold) {
+                open();
+            }
+        }
+
+        public synchronized CircuitState getState() {
+            return state;
+        }
+
+        private void open() {
+            currentOpenDuration = nextOpenDuration();
+            state = CircuitState.OPEN;
+            retryAt = System.currentTimeMillis() + currentOpenDuration;
+            lastOpened = LocalDateTime.now();
+            openCount++;
+            log.warn("Circuito de {} abierto durante {} ms", endpoint, currentOpenDuration);
+        }
+
+        private long nextOpenDuration() {
+            long max = maxOpenDuration;
+            long duration = Math.min(openDuration, max);
+            for (int i = 0; i < failedProbes && duration < max; i++) {
+                duration = Math.min(max, duration * 2);
+            }
+            return duration;
+        }
+    }
+}
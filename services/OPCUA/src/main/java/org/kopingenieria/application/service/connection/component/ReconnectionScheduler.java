@@ -0,0 +1,190 @@
+package org.kopingenieria.application.service.connection.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.kopingenieria.util.helper.WheelTimer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Planificador comun de todas las reconexiones.
+ * <p>
+ * Cada intento espera un retardo con jitter para que las conexiones caidas a la vez no
+ * reintenten todas en el mismo instante. Cuando vence el retardo, el intento entra en una
+ * cola de listos que solo avanza mientras no se superen {@code maxConcurrent} reconexiones
+ * en curso en total ni {@code maxPerEndpoint} por endpoint. De la cola salen primero los
+ * intentos de conexiones que tienen peticiones esperando.
+ */
+@Slf4j
+@Component("reconnectionScheduler")
+@RequiredArgsConstructor
+public class ReconnectionScheduler {
+
+    private final WheelTimer wheelTimer;
+    private final List<Attempt<?>> ready = new LinkedList<>();
+    private final Map<String, Integer> runningPerEndpoint = new HashMap<>();
+    private int running;
+
+    @Value("${opcua.connection.reconnect.maxConcurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${opcua.connection.reconnect.maxPerEndpoint:2}")
+    private int maxPerEndpoint;
+
+    @Value("${opcua.connection.reconnect.maxDelay:60000}")
+    private long maxDelay;
+
+    private final class Attempt<T> {
+        private final String endpoint;
+        private final Callable<CompletableFuture<T>> action;
+        private final Predicate<T> succeeded;
+        private final BooleanSupplier demand;
+        private final LongUnaryOperator backoff;
+        private final int maxAttempts;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private int attempt;
+        private long delay;
+
+        private Attempt(String endpoint, Callable<CompletableFuture<T>> action, Predicate<T> succeeded,
+                        BooleanSupplier demand, LongUnaryOperator backoff, int maxAttempts, long delay) {
+            this.endpoint = endpoint;
+            this.action = action;
+            this.succeeded = succeeded;
+            this.demand = demand;
+            this.backoff = backoff;
+            this.maxAttempts = maxAttempts;
+            this.delay = delay;
+        }
+    }
+
+    /**
+     * Reintenta {@code action} hasta que {@code succeeded} se cumpla o se agoten
+     * {@code maxAttempts} intentos; el resultado es el del ultimo intento.
+     *
+     * @param initialDelay retardo de referencia para el primer intento, que {@code backoff} transforma
+     * @param demand       indica si la conexion tiene peticiones esperando en este momento
+     */
+    public <T> CompletableFuture<T> schedule(String endpoint, int maxAttempts, long initialDelay,
+                                             LongUnaryOperator backoff, BooleanSupplier demand,
+                                             Callable<CompletableFuture<T>> action, Predicate<T> succeeded) {
+        Attempt<T> attempt = new Attempt<>(endpoint, action, succeeded, demand, backoff, maxAttempts, initialDelay);
+        delay(attempt);
+        return attempt.result;
+    }
+
+    /**
+     * Backoff con jitter decorrelado: cada retardo es aleatorio entre {@code base} y el triple
+     * del anterior, sin pasar de {@code maxDelay}.
+     */
+    public LongUnaryOperator decorrelatedJitter(long base) {
+        return previous -> Math.min(maxDelay,
+                ThreadLocalRandom.current().nextLong(base, Math.max(base, previous * 3) + 1));
+    }
+
+    /**
+     * Intervalo fijo con un jitter de +-50% para repartir los reintentos.
+     */
+    public LongUnaryOperator jitteredInterval(long interval) {
+        return previous -> interval / 2 + ThreadLocalRandom.current().nextLong(interval + 1);
+    }
+
+    private void delay(Attempt<?> attempt) {
+        attempt.delay = attempt.backoff.applyAsLong(attempt.delay);
+        wheelTimer.schedule(() -> {
+            synchronized (this) {
+                ready.add(attempt);
+            }
+            dispatch();
+        }, attempt.delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void dispatch() {
+        List<Attempt<?>> toStart = new ArrayList<>();
+        synchronized (this) {
+            while (running < Math.max(1, maxConcurrent)) {
+                Attempt<?> next = nextReady();
+                if (next == null) {
+                    break;
+                }
+                running++;
+                runningPerEndpoint.merge(next.endpoint, 1, Integer::sum);
+                toStart.add(next);
+            }
+        }
+        toStart.forEach(this::run);
+    }
+
+    /**
+     * Primer intento listo cuyo endpoint tenga hueco, prefiriendo los que tienen demanda.
+     */
+    private Attempt<?> nextReady() {
+        Attempt<?> fallback = null;
+        for (Iterator<Attempt<?>> it = ready.iterator(); it.hasNext(); ) {
+            Attempt<?> candidate = it.next();
+            if (runningPerEndpoint.getOrDefault(candidate.endpoint, 0) >= Math.max(1, maxPerEndpoint)) {
+                continue;
+            }
+            if (hasDemand(candidate)) {
+                it.remove();
+                return candidate;
+            }
+            if (fallback == null) {
+                fallback = candidate;
+            }
+        }
+        if (fallback != null) {
+            ready.remove(fallback);
+        }
+        return fallback;
+    }
+
+    private boolean hasDemand(Attempt<?> attempt) {
+        try {
+            return attempt.demand.getAsBoolean();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private <T> void run(Attempt<T> attempt) {
+        attempt.attempt++;
+        CompletableFuture<T> outcome;
+        try {
+            outcome = attempt.action.call();
+        } catch (Exception e) {
+            outcome = CompletableFuture.failedFuture(e);
+        }
+        outcome.whenComplete((value, ex) -> {
+            synchronized (this) {
+                running--;
+                runningPerEndpoint.computeIfPresent(attempt.endpoint, (k, count) -> count > 1 ? count - 1 : null);
+            }
+            boolean success = ex == null && attempt.succeeded.test(value);
+            if (success || attempt.attempt >= attempt.maxAttempts) {
+                if (ex != null) {
+                    attempt.result.completeExceptionally(ex);
+                } else {
+                    attempt.result.complete(value);
+                }
+            } else {
+                log.debug("Reconexion {} de {} a {} fallida, se reintenta", attempt.attempt,
+                        attempt.maxAttempts, attempt.endpoint);
+                delay(attempt);
+            }
+            dispatch();
+        });
+    }
+}
@@ -22,4 +22,6 @@ public interface UserConnection extends AutoCloseable {
     CompletableFuture<ConnectionResponse>linearreconnection()throws Exception;
 
     CompletableFuture<ConnectionResponse> ping()throws Exception;
+
+    CompletableFuture<ConnectionResponse> ping(boolean force)throws Exception;
 }
@@ -0,0 +1,27 @@
+package org.kopingenieria.application.service.connection.user;
+
+import lombok.RequiredArgsConstructor;
+import org.kopingenieria.application.service.connection.component.ReconnectionScheduler;
+import org.kopingenieria.application.service.pool.clients.user.OpcUaUserPool;
+import org.kopingenieria.util.helper.LivenessTracker;
+import org.kopingenieria.util.helper.NodeIdResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crea las conexiones de los pools con sus colaboradores ya resueltos; los pools las
+ * instancian fuera de Spring y la inyeccion por campo no llegaria a ellas.
+ */
+@Component("userConnectionFactory")
+@RequiredArgsConstructor
+public class UserConnectionFactory {
+
+    private final OpcUaUserPool userpool;
+    private final NodeIdResolver nodeIdResolver;
+    private final ReconnectionScheduler reconnectionScheduler;
+    private final LivenessTracker livenessTracker;
+
+    public UserConnectionImpl create(String clientId) {
+        return new UserConnectionImpl(clientId, userpool, nodeIdResolver, reconnectionScheduler,
+                livenessTracker);
+    }
+}
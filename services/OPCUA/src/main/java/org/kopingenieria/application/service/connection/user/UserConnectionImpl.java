@@ -1,19 +1,24 @@
 package org.kopingenieria.application.service.connection.user;
 
 import lombok.Getter;
+import lombok.Setter;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.sdk.client.api.UaClient;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
 import org.kopingenieria.api.response.connection.ConnectionResponse;
+import org.kopingenieria.application.service.connection.component.CircuitBreakerRegistry;
+import org.kopingenieria.application.service.connection.component.ReconnectionScheduler;
 import org.kopingenieria.application.service.pool.clients.user.OpcUaUserPool;
 import org.kopingenieria.domain.enums.connection.ConnectionStatus;
 import org.kopingenieria.domain.enums.connection.UrlType;
 import org.kopingenieria.application.validators.user.UserConnectionValidatorImpl;
 import org.kopingenieria.domain.model.user.UserOpcUa;
 import org.kopingenieria.exception.exceptions.*;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.kopingenieria.util.helper.LivenessTracker;
+import org.kopingenieria.util.helper.NodeIdResolver;
+import org.kopingenieria.util.helper.WheelTimer;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -22,19 +27,24 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.function.Function;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongUnaryOperator;
 
 @Component("UserConnectionImpl")
 public class UserConnectionImpl implements UserConnection {
 
     private static final int MAX_RETRIES = 3;
     private static final int INITIAL_WAIT = 1000;
-    private static final double BACKOFF_FACTOR = 2.0;
     private static final int LINEAR_RETRY_INTERVAL = 5000;
     private static final int CONNECTION_TIMEOUT = 10000;
-
-    @Autowired
-    private OpcUaUserPool userpool;
+    private static final String PING_NODE_ID = "ns=0;i=2259";
+
+    private final OpcUaUserPool userpool;
+    private final NodeIdResolver nodeIdResolver;
+    private final ReconnectionScheduler reconnectionScheduler;
+    private final WheelTimer wheelTimer;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final LivenessTracker livenessTracker;
     private OpcUaUserPool.PooledOpcUaClient pooledClient;
     private final UserConnectionValidatorImpl validatorConnection;
     private UrlType lastConnectedUrl;
@@ -44,8 +54,19 @@ public class UserConnectionImpl implements UserConnection {
     private LocalDateTime lastActivityTime;
     @Getter
     private String clientId;
-
-    public UserConnectionImpl(String clientId) {
+    @Setter
+    private BooleanSupplier demand = () -> false;
+    private volatile boolean reconnecting;
+
+    public UserConnectionImpl(String clientId, OpcUaUserPool userpool, NodeIdResolver nodeIdResolver,
+                                    ReconnectionScheduler reconnectionScheduler, LivenessTracker livenessTracker) {
+        this.userpool = userpool;
+        this.nodeIdResolver = nodeIdResolver;
+        this.reconnectionScheduler = reconnectionScheduler;
+        this.livenessTracker = livenessTracker;
+        // Compartidos con los pools, que tambien se crean fuera de Spring
+        this.wheelTimer = WheelTimer.shared();
+        this.circuitBreakers = CircuitBreakerRegistry.shared();
         this.validatorConnection = new UserConnectionValidatorImpl();
         this.currentStatus = ConnectionStatus.UNKNOWN;
         this.lastActivityTime = LocalDateTime.now();
@@ -64,28 +85,43 @@ public class UserConnectionImpl implements UserConnection {
     public CompletableFuture<ConnectionResponse> connect(UrlType url) throws Exception {
         validateUrl(url);
         lastConnectedUrl = url;
+        CircuitBreakerRegistry.CircuitBreaker breaker = circuitBreakers.forEndpoint(url.getUrl());
+        if (!breaker.tryAcquire()) {
+            // El endpoint esta caido: se falla al momento en lugar de esperar al timeout
+            updateConnectionStatus(ConnectionStatus.CIRCUIT_OPEN);
+            return CompletableFuture.completedFuture(createConnectionResponse(ConnectionStatus.CIRCUIT_OPEN));
+        }
         updateConnectionStatus(ConnectionStatus.CONNECTING);
         try {
-            Optional<OpcUaUserPool.PooledOpcUaClient> optionalClient =
-                    userpool.obtenerCliente(clientId);
+            if (pooledClient == null) {
+                Optional<OpcUaUserPool.PooledOpcUaClient> optionalClient =
+                        userpool.obtenerCliente(clientId);
 
-            if (optionalClient.isEmpty()) {
-                throw new ConnectionException("No se pudo obtener un cliente del pool");
-            }
+                if (optionalClient.isEmpty()) {
+                    throw new ConnectionException("No se pudo obtener un cliente del pool");
+                }
 
-            pooledClient = optionalClient.get();
+                pooledClient = optionalClient.get();
+            }
             OpcUaClient opcUaClient = pooledClient.getClient();
 
-            return CompletableFuture.supplyAsync(() -> {
+            CompletableFuture<ConnectionResponse> connection = CompletableFuture.supplyAsync(() -> {
                         if (!validateConnection(url, opcUaClient)) {
                             throw new CompletionException(
                                     new ConnectionException("Validación de conexión fallida"));
                         }
                         return true;
                     })
-                    .thenCompose(valid -> connectClient(opcUaClient))
-                    .orTimeout(CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
-                    .exceptionally(this::handleConnectionException);
+                    .thenCompose(valid -> connectClient(opcUaClient));
+            return wheelTimer.orTimeout(connection, CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
+                    .exceptionally(this::handleConnectionException)
+                    .whenComplete((response, ex) -> {
+                        if (ex == null && response.getStatus() == ConnectionStatus.CONNECTED) {
+                            breaker.onSuccess();
+                        } else {
+                            breaker.onFailure();
+                        }
+                    });
         } catch (Exception e) {
             throw new ConnectionException("Error en la conexión OPC UA", e);
         }
@@ -97,6 +133,11 @@ public class UserConnectionImpl implements UserConnection {
             return CompletableFuture.completedFuture(
                     createConnectionResponse(ConnectionStatus.DISCONNECTED));
         }
+        if (pooledClient.isShared()) {
+            // La sesion es compartida con otras conexiones logicas: solo se suelta la referencia
+            cleanup();
+            return CompletableFuture.completedFuture(createConnectionResponse(ConnectionStatus.DISCONNECTED));
+        }
 
         return pooledClient.getClient().disconnect()
                 .thenApply(result -> {
@@ -122,8 +163,7 @@ public class UserConnectionImpl implements UserConnection {
     public CompletableFuture<ConnectionResponse> backoffreconnection(UrlType url)
             throws Exception {
         validateUrl(url);
-        cleanup();
-        return attemptBackoffReconnection(url, 1, INITIAL_WAIT);
+        return scheduleReconnection(url, INITIAL_WAIT, reconnectionScheduler.decorrelatedJitter(INITIAL_WAIT));
     }
 
     @Override
@@ -138,71 +178,77 @@ public class UserConnectionImpl implements UserConnection {
     public CompletableFuture<ConnectionResponse> linearreconnection(UrlType url)
             throws Exception {
         validateUrl(url);
-        cleanup();
-        return attemptLinearReconnection(url, 1);
+        return scheduleReconnection(url, LINEAR_RETRY_INTERVAL,
+                reconnectionScheduler.jitteredInterval(LINEAR_RETRY_INTERVAL));
     }
 
     @Override
     public CompletableFuture<ConnectionResponse> ping() throws Exception {
+        return ping(false);
+    }
+
+    /**
+     * Comprueba la conexion. Sin {@code force} basta con trafico reciente del cliente Milo para
+     * darla por viva; con {@code force} siempre se lee el ServerStatus, como tras un fallo.
+     */
+    @Override
+    public CompletableFuture<ConnectionResponse> ping(boolean force) throws Exception {
         if (pooledClient == null || !pooledClient.isConnected()) {
             throw new OpcUaPingException("Cliente OPC UA no conectado");
         }
 
-        NodeId pingNodeId = NodeId.parse("ns=0;i=2259");
-        return pooledClient.getClient().readValue(0, TimestampsToReturn.Both, pingNodeId)
-                .thenApply(this::handlePingResponse)
+        OpcUaClient client = pooledClient.getClient();
+        if (!force && livenessTracker.isAlive(client)) {
+            // Ha habido trafico reciente con el servidor: no hace falta otra lectura
+            updateConnectionStatus(ConnectionStatus.CONNECTED);
+            return CompletableFuture.completedFuture(createConnectionResponse(ConnectionStatus.CONNECTED));
+        }
+        NodeId pingNodeId = nodeIdResolver.parse(PING_NODE_ID)
+                .orElseThrow(() -> new OpcUaPingException("NodeId de ping no valido: " + PING_NODE_ID));
+        return client.readValue(0, TimestampsToReturn.Both, pingNodeId)
+                .thenApply(value -> {
+                    livenessTracker.touch(client);
+                    return handlePingResponse(value);
+                })
                 .exceptionally(ex -> createConnectionResponse(ConnectionStatus.ERROR));
     }
 
+    /**
+     * Indica si la conexion tiene ya una sesion abierta con el servidor; sin ella {@link #ping()}
+     * falla y hay que conectar.
+     */
+    public boolean hasSession() {
+        OpcUaUserPool.PooledOpcUaClient client = pooledClient;
+        return client != null && client.isConnected();
+    }
+
     @Override
     public void close() throws Exception {
         cleanup();
     }
 
-    private CompletableFuture<ConnectionResponse> attemptBackoffReconnection(
-            UrlType url, int retryCount, double waitTime) {
-        if (retryCount > MAX_RETRIES) {
-            updateConnectionStatus(ConnectionStatus.RECONNECTION_FAILED);
-            return CompletableFuture.completedFuture(
-                    createConnectionResponse(ConnectionStatus.RECONNECTION_FAILED));
-        }
-
-        return CompletableFuture.supplyAsync(() -> {
-                    try {
-                        return connect(url).thenCompose(response -> {
-                            if (response.getStatus() == ConnectionStatus.CONNECTED) {
-                                return CompletableFuture.completedFuture(response);
-                            }
-                            return attemptBackoffReconnection(
-                                    url, retryCount + 1, waitTime * BACKOFF_FACTOR);
-                        });
-                    } catch (Exception e) {
-                        throw new CompletionException(e);
-                    }
-                }, CompletableFuture.delayedExecutor((long) waitTime, TimeUnit.MILLISECONDS))
-                .thenCompose(Function.identity());
-    }
-
-    private CompletableFuture<ConnectionResponse> attemptLinearReconnection(
-            UrlType url, int retryCount) {
-        if (retryCount > MAX_RETRIES) {
-            updateConnectionStatus(ConnectionStatus.RECONNECTION_FAILED);
-            return CompletableFuture.completedFuture(
-                    createConnectionResponse(ConnectionStatus.RECONNECTION_FAILED));
-        }
-        return CompletableFuture.supplyAsync(() -> {
-                    try {
-                        return connect(url).thenCompose(response -> {
-                            if (response.getStatus() == ConnectionStatus.CONNECTED) {
-                                return CompletableFuture.completedFuture(response);
-                            }
-                            return attemptLinearReconnection(url, retryCount + 1);
-                        });
-                    } catch (Exception e) {
-                        throw new CompletionException(e);
+    /**
+     * Los reintentos los reparte el planificador comun para que las conexiones caidas a la
+     * vez no saturen al servidor; {@code demand} adelanta a las que tienen peticiones esperando.
+     * Durante los reintentos se conserva el mismo cliente Milo para que, al recuperar la sesion,
+     * Milo transfiera a ella las suscripciones que el servidor aun mantiene.
+     */
+    private CompletableFuture<ConnectionResponse> scheduleReconnection(UrlType url, long initialDelay,
+                                                                      LongUnaryOperator backoff) {
+        reconnecting = true;
+        return reconnectionScheduler.schedule(url.getUrl(), MAX_RETRIES, initialDelay, backoff, demand,
+                        () -> connect(url),
+                        response -> response.getStatus() == ConnectionStatus.CONNECTED)
+                .handle((response, ex) -> {
+                    reconnecting = false;
+                    if (ex == null && (response.getStatus() == ConnectionStatus.CONNECTED
+                            || response.getStatus() == ConnectionStatus.CIRCUIT_OPEN)) {
+                        return response;
                     }
-                }, CompletableFuture.delayedExecutor(LINEAR_RETRY_INTERVAL, TimeUnit.MILLISECONDS))
-                .thenCompose(Function.identity());
+                    cleanup();
+                    updateConnectionStatus(ConnectionStatus.RECONNECTION_FAILED);
+                    return createConnectionResponse(ConnectionStatus.RECONNECTION_FAILED);
+                });
     }
 
     private boolean validateConnection(UrlType url, OpcUaClient client) {
@@ -213,13 +259,17 @@ public class UserConnectionImpl implements UserConnection {
     private CompletableFuture<ConnectionResponse> connectClient(OpcUaClient client) {
         return client.connect()
                 .thenApply(connection -> {
+                    // La tabla de namespaces del servidor puede cambiar entre sesiones
+                    nodeIdResolver.invalidate(client);
                     updateConnectionStatus(ConnectionStatus.CONNECTED);
                     return createConnectionResponse(ConnectionStatus.CONNECTED, connection);
                 });
     }
 
     private ConnectionResponse handleConnectionException(Throwable ex) {
-        cleanup();
+        if (!reconnecting) {
+            cleanup();
+        }
 
         if (ex instanceof TimeoutException) {
             updateConnectionStatus(ConnectionStatus.FAILED);
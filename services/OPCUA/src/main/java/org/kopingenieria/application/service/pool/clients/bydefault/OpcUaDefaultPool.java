@@ -1,11 +1,15 @@
 package org.kopingenieria.application.service.pool.clients.bydefault;
 
+import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.kopingenieria.api.response.configuration.bydefault.DefaultConfigResponse;
 import org.kopingenieria.application.service.configuration.bydefault.component.DefaultConfigComp;
+import org.kopingenieria.application.service.pool.clients.component.ClientPoolEviction;
+import org.kopingenieria.application.service.pool.clients.component.SessionMultiplexer;
 import org.kopingenieria.domain.model.bydefault.DefaultOpcUa;
+import org.kopingenieria.util.helper.ClientLifecycle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
@@ -13,8 +17,10 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Component("opcUaDefaultPool")
 @AllArgsConstructor
@@ -23,6 +29,15 @@ public class OpcUaDefaultPool {
     @Autowired
     private DefaultConfigComp opcUaConfiguration;
 
+    @Autowired
+    private SessionMultiplexer sessionMultiplexer;
+
+    @Autowired
+    private ClientPoolEviction clientEviction;
+
+    @Autowired
+    private ClientLifecycle clientLifecycle;
+
     private final Map<ClientKey, PooledOpcUaClient> activeClients;
     private final Map<ClientKey, BlockingQueue<PooledOpcUaClient>> availableClients;
     private final ScheduledExecutorService maintenanceExecutor;
@@ -49,6 +64,7 @@ public class OpcUaDefaultPool {
         private final DefaultOpcUa defaultConfig;
         private volatile long lastUsed;
         private volatile boolean isValid;
+        private volatile boolean shared;
 
         public PooledOpcUaClient(OpcUaClient client,
                                  DefaultOpcUa defaultConfig) {
@@ -64,9 +80,32 @@ public class OpcUaDefaultPool {
         }
     }
 
+    @PostConstruct
+    public void iniciarMantenimiento() {
+        long interval = clientEviction.getMaintenanceInterval();
+        maintenanceExecutor.scheduleWithFixedDelay(this::mantenimiento, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void mantenimiento() {
+        clientEviction.evict(availableClients, activeClients.size(),
+                PooledOpcUaClient::getLastUsed, this::retirarCliente);
+    }
+
+    private CompletableFuture<OpcUaClient> retirarCliente(PooledOpcUaClient client) {
+        client.setValid(false);
+        clientLifecycle.forget(client.getClient());
+        return client.getClient().disconnect();
+    }
+
     public Optional<PooledOpcUaClient> obtenerCliente(String id) {
         DefaultOpcUa defaultclient = opcUaConfiguration.readDefaultConfiguration(id).getClient();
         ClientKey key = new ClientKey(defaultclient);
+        if (sessionMultiplexer.isEnabled()) {
+            // Todas las conexiones logicas de la misma configuracion comparten sesion
+            return sessionMultiplexer.acquire(sharedKey(key),
+                    () -> crearClienteCompartido(id),
+                    this::retirarCliente);
+        }
         // Intentar obtener un cliente existente
         Optional<PooledOpcUaClient> existingClient = obtenerClienteExistente(key);
         if (existingClient.isPresent()) {
@@ -90,21 +129,39 @@ public class OpcUaDefaultPool {
     }
 
     private Optional<PooledOpcUaClient> crearNuevoCliente(String id) {
+        Optional<PooledOpcUaClient> client = construirCliente(id);
+        client.ifPresent(pooledClient -> activeClients.put(pooledClient.getKey(), pooledClient));
+        return client;
+    }
+
+    private Optional<PooledOpcUaClient> crearClienteCompartido(String id) {
+        // Las sesiones compartidas las cuenta el multiplexor; no pasan por activeClients
+        Optional<PooledOpcUaClient> client = construirCliente(id);
+        client.ifPresent(shared -> shared.setShared(true));
+        return client;
+    }
+
+    private Optional<PooledOpcUaClient> construirCliente(String id) {
         try {
             DefaultConfigResponse response = opcUaConfiguration.readDefaultConfiguration(id);
             OpcUaClient miloClient = response.getMiloClient();
             DefaultOpcUa defaultClient = response.getClient();
-            PooledOpcUaClient pooledClient = new PooledOpcUaClient(miloClient, defaultClient);
-            ClientKey key = new ClientKey(defaultClient);
-            activeClients.put(key, pooledClient);
-            return Optional.of(pooledClient);
+            return Optional.of(new PooledOpcUaClient(miloClient, defaultClient));
 
         } catch (Exception e) {
             return Optional.empty();
         }
     }
 
+    private String sharedKey(ClientKey key) {
+        return "default:" + key.getName();
+    }
+
     public void liberarCliente(PooledOpcUaClient client) {
+        if (client != null && client.isShared()) {
+            sessionMultiplexer.release(sharedKey(client.key), client);
+            return;
+        }
         if (client != null && client.isValid) {
             client.lastUsed = System.currentTimeMillis();
             BlockingQueue<PooledOpcUaClient> queue = availableClients.computeIfAbsent(
@@ -113,6 +170,9 @@ public class OpcUaDefaultPool {
             );
             queue.offer(client);
             activeClients.remove(client.key);
+            if (clientEviction.isOverCapacity(availableClients, activeClients.size())) {
+                maintenanceExecutor.execute(this::mantenimiento);
+            }
         }
     }
 }
@@ -0,0 +1,91 @@
+package org.kopingenieria.application.service.pool.clients.component;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Limpieza de los pools de clientes Milo: retira los clientes libres que llevan mas de
+ * {@code idleTtl} ms sin usarse y, si el total sigue por encima de {@code maxClients}, los
+ * libres usados hace mas tiempo. La desconexion de los retirados no bloquea al llamador.
+ */
+@Slf4j
+@Component("clientPoolEviction")
+public class ClientPoolEviction {
+
+    @Value("${opcua.pool.clients.idleTtl:600000}")
+    private long idleTtl;
+
+    @Value("${opcua.pool.clients.maxClients:200}")
+    private int maxClients;
+
+    @Getter
+    @Value("${opcua.pool.clients.maintenanceInterval:60000}")
+    private long maintenanceInterval;
+
+    public boolean isOverCapacity(Map<?, ? extends Collection<?>> available, int active) {
+        return active + idleCount(available) > maxClients;
+    }
+
+    /**
+     * Devuelve cuantos clientes se han retirado de {@code available}.
+     */
+    public <T> int evict(Map<?, ? extends Collection<T>> available, int active, ToLongFunction<T> lastUsed,
+                         Function<T, CompletableFuture<?>> disconnect) {
+        long expiredBefore = System.currentTimeMillis() - idleTtl;
+        int evicted = 0;
+
+        for (Collection<T> idle : available.values()) {
+            for (T client : idle) {
+                if (lastUsed.applyAsLong(client) < expiredBefore && idle.remove(client)) {
+                    disconnect(client, disconnect);
+                    evicted++;
+                }
+            }
+        }
+
+        int excess = active + idleCount(available) - maxClients;
+        if (excess > 0) {
+            // LRU: se retiran primero los libres usados hace mas tiempo
+            record Candidate<T>(Collection<T> queue, T client, long lastUsed) {}
+            for (Candidate<T> candidate : available.values().stream()
+                    .flatMap(queue -> queue.stream().map(c -> new Candidate<>(queue, c, lastUsed.applyAsLong(c))))
+                    .sorted(Comparator.comparingLong(Candidate::lastUsed))
+                    .limit(excess)
+                    .toList()) {
+                if (candidate.queue().remove(candidate.client())) {
+                    disconnect(candidate.client(), disconnect);
+                    evicted++;
+                }
+            }
+        }
+
+        if (evicted > 0) {
+            log.info("Retirados {} clientes OPC UA inactivos", evicted);
+        }
+        return evicted;
+    }
+
+    private <T> void disconnect(T client, Function<T, CompletableFuture<?>> disconnect) {
+        try {
+            disconnect.apply(client).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.warn("Error desconectando un cliente OPC UA retirado", ex);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Error desconectando un cliente OPC UA retirado", e);
+        }
+    }
+
+    private int idleCount(Map<?, ? extends Collection<?>> available) {
+        return available.values().stream().mapToInt(Collection::size).sum();
+    }
+}
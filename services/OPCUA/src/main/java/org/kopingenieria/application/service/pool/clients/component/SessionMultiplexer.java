@@ -0,0 +1,155 @@
+package org.kopingenieria.application.service.pool.clients.component;
+
+import jakarta.annotation.PreDestroy;
+import io.netty.util.Timeout;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.kopingenieria.util.helper.WheelTimer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Comparte una o pocas sesiones OPC UA por configuracion entre muchas conexiones logicas.
+ * <p>
+ * Milo encadena las peticiones concurrentes sobre el mismo canal seguro, asi que N usuarios
+ * del mismo PLC no necesitan N sesiones. Cada sesion compartida lleva un contador de
+ * referencias y se cierra cuando lleva {@code idleGrace} ms sin ninguna.
+ */
+@Slf4j
+@Component("sessionMultiplexer")
+@RequiredArgsConstructor
+public class SessionMultiplexer {
+
+    private final Map<String, List<SharedSession<?>>> sessions = new ConcurrentHashMap<>();
+    private final WheelTimer wheelTimer;
+
+    @Getter
+    @Value("${opcua.pool.multiplexing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${opcua.pool.multiplexing.sessionsPerEndpoint:1}")
+    private int sessionsPerEndpoint;
+
+    @Value("${opcua.pool.multiplexing.idleGrace:30000}")
+    private long idleGrace;
+
+    private static final class SharedSession<T> {
+        private final T client;
+        private final Consumer<T> closer;
+        private final AtomicInteger references = new AtomicInteger();
+        private Timeout closeTask;
+        private boolean closed;
+
+        private SharedSession(T client, Consumer<T> closer) {
+            this.client = client;
+            this.closer = closer;
+        }
+    }
+
+    /**
+     * Devuelve una sesion compartida para {@code key}: la menos referenciada de las existentes
+     * o una nueva creada con {@code factory} mientras no se alcance {@code sessionsPerEndpoint}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> acquire(String key, Supplier<Optional<T>> factory, Consumer<T> closer) {
+        List<SharedSession<?>> shared = sessions.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+        synchronized (shared) {
+            Optional<SharedSession<?>> leastUsed = shared.stream()
+                    .min(Comparator.comparingInt(session -> session.references.get()));
+            if (leastUsed.isPresent()
+                    && (shared.size() >= Math.max(1, sessionsPerEndpoint) || leastUsed.get().references.get() == 0)) {
+                return Optional.of((T) retain(leastUsed.get()));
+            }
+            Optional<T> created = factory.get();
+            created.ifPresent(client -> {
+                SharedSession<T> session = new SharedSession<>(client, closer);
+                shared.add(session);
+                retain(session);
+                log.debug("Nueva sesion compartida para {} ({} en total)", key, shared.size());
+            });
+            return created;
+        }
+    }
+
+    /**
+     * Suelta una referencia; devuelve {@code false} si el cliente no es una sesion compartida.
+     */
+    public boolean release(String key, Object client) {
+        List<SharedSession<?>> shared = sessions.get(key);
+        if (shared == null) {
+            return false;
+        }
+        synchronized (shared) {
+            for (SharedSession<?> session : shared) {
+                if (session.client == client) {
+                    if (session.references.decrementAndGet() <= 0) {
+                        session.references.set(0);
+                        scheduleClose(key, shared, session);
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int getReferenceCount(String key) {
+        List<SharedSession<?>> shared = sessions.get(key);
+        return shared == null ? 0 : shared.stream().mapToInt(session -> session.references.get()).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(shared -> {
+            synchronized (shared) {
+                shared.forEach(this::close);
+                shared.clear();
+            }
+        });
+        sessions.clear();
+    }
+
+    private Object retain(SharedSession<?> session) {
+        session.references.incrementAndGet();
+        if (session.closeTask != null) {
+            session.closeTask.cancel();
+            session.closeTask = null;
+        }
+        return session.client;
+    }
+
+    private void scheduleClose(String key, List<SharedSession<?>> shared, SharedSession<?> session) {
+        session.closeTask = wheelTimer.schedule(() -> {
+            synchronized (shared) {
+                if (session.references.get() > 0 || !shared.remove(session)) {
+                    return;
+                }
+            }
+            log.debug("Cerrando sesion compartida inactiva de {}", key);
+            close(session);
+        }, idleGrace, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> void close(SharedSession<T> session) {
+        if (session.closed) {
+            return;
+        }
+        session.closed = true;
+        try {
+            session.closer.accept(session.client);
+        } catch (Exception e) {
+            log.warn("Error cerrando una sesion compartida", e);
+        }
+    }
+}
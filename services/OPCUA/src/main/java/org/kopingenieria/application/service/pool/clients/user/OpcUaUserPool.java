@@ -1,11 +1,15 @@
 package org.kopingenieria.application.service.pool.clients.user;
 
+import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.kopingenieria.api.response.configuration.user.UserConfigResponse;
 import org.kopingenieria.application.service.configuration.user.component.UserConfigComp;
+import org.kopingenieria.application.service.pool.clients.component.ClientPoolEviction;
+import org.kopingenieria.application.service.pool.clients.component.SessionMultiplexer;
 import org.kopingenieria.domain.model.user.UserOpcUa;
+import org.kopingenieria.util.helper.ClientLifecycle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -14,8 +18,10 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Component("opcUaUserPool")
 @AllArgsConstructor
@@ -24,6 +30,15 @@ public class OpcUaUserPool {
     @Autowired
     private UserConfigComp opcUaConfiguration;
 
+    @Autowired
+    private SessionMultiplexer sessionMultiplexer;
+
+    @Autowired
+    private ClientPoolEviction clientEviction;
+
+    @Autowired
+    private ClientLifecycle clientLifecycle;
+
     private final Map<ClientKey, PooledOpcUaClient> activeClients;
     private final Map<ClientKey, BlockingQueue<PooledOpcUaClient>> availableClients;
     private final ScheduledExecutorService maintenanceExecutor;
@@ -49,6 +64,7 @@ public class OpcUaUserPool {
         private final UserOpcUa userConfig;
         private volatile long lastUsed;
         private volatile boolean isValid;
+        private volatile boolean shared;
 
         public PooledOpcUaClient(OpcUaClient client,
                                  UserOpcUa userConfig) {
@@ -64,10 +80,33 @@ public class OpcUaUserPool {
         }
     }
 
+    @PostConstruct
+    public void iniciarMantenimiento() {
+        long interval = clientEviction.getMaintenanceInterval();
+        maintenanceExecutor.scheduleWithFixedDelay(this::mantenimiento, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void mantenimiento() {
+        clientEviction.evict(availableClients, activeClients.size(),
+                PooledOpcUaClient::getLastUsed, this::retirarCliente);
+    }
+
+    private CompletableFuture<OpcUaClient> retirarCliente(PooledOpcUaClient client) {
+        client.setValid(false);
+        clientLifecycle.forget(client.getClient());
+        return client.getClient().disconnect();
+    }
+
     public Optional<PooledOpcUaClient> obtenerCliente(String id) {
         UserConfigResponse configuration = opcUaConfiguration.getUserConfiguration(id);
         UserOpcUa opcUa = configuration.getClient();
         ClientKey key = new ClientKey(opcUa);
+        if (sessionMultiplexer.isEnabled()) {
+            // Todas las conexiones logicas de la misma configuracion comparten sesion
+            return sessionMultiplexer.acquire(sharedKey(key),
+                    () -> crearClienteCompartido(id),
+                    this::retirarCliente);
+        }
         // Intentar obtener un cliente existente
         Optional<PooledOpcUaClient> existingClient = obtenerClienteExistente(key);
         if (existingClient.isPresent()) {
@@ -91,24 +130,41 @@ public class OpcUaUserPool {
     }
 
     private Optional<PooledOpcUaClient> crearNuevoCliente(String id) {
+        Optional<PooledOpcUaClient> client = construirCliente(id);
+        client.ifPresent(pooledClient -> activeClients.put(pooledClient.getKey(), pooledClient));
+        return client;
+    }
+
+    private Optional<PooledOpcUaClient> crearClienteCompartido(String id) {
+        // Las sesiones compartidas las cuenta el multiplexor; no pasan por activeClients
+        Optional<PooledOpcUaClient> client = construirCliente(id);
+        client.ifPresent(shared -> shared.setShared(true));
+        return client;
+    }
+
+    private Optional<PooledOpcUaClient> construirCliente(String id) {
         try {
 
             UserConfigResponse configuration = opcUaConfiguration.getUserConfiguration(id);
             UserOpcUa userOpcUa = configuration.getClient();
             OpcUaClient miloClient = configuration.getMiloClient();
 
-            PooledOpcUaClient pooledClient = new PooledOpcUaClient(miloClient, userOpcUa);
-            ClientKey key = new ClientKey(userOpcUa);
-
-            activeClients.put(key, pooledClient);
-            return Optional.of(pooledClient);
+            return Optional.of(new PooledOpcUaClient(miloClient, userOpcUa));
 
         } catch (Exception e) {
             return Optional.empty();
         }
     }
 
+    private String sharedKey(ClientKey key) {
+        return "user:" + key.getName();
+    }
+
     public void liberarCliente(PooledOpcUaClient client) {
+        if (client != null && client.isShared()) {
+            sessionMultiplexer.release(sharedKey(client.key), client);
+            return;
+        }
         if (client != null && client.isValid) {
             client.lastUsed = System.currentTimeMillis();
             BlockingQueue<PooledOpcUaClient> queue = availableClients.computeIfAbsent(
@@ -117,6 +173,9 @@ public class OpcUaUserPool {
             );
             queue.offer(client);
             activeClients.remove(client.key);
+            if (clientEviction.isOverCapacity(availableClients, activeClients.size())) {
+                maintenanceExecutor.execute(this::mantenimiento);
+            }
         }
     }
 
@@ -2,6 +2,8 @@ package org.kopingenieria.application.service.pool.connections;
 
 import lombok.RequiredArgsConstructor;
 import org.kopingenieria.api.response.connection.ConnectionResponse;
+import org.kopingenieria.application.service.connection.bydefault.DefaultConnectionFactory;
+import org.kopingenieria.application.service.connection.bydefault.DefaultConnectionImpl;
 import org.kopingenieria.application.service.pool.connections.bydefault.DefaultConnectionPool;
 import org.kopingenieria.domain.enums.connection.ConnectionStatus;
 import org.kopingenieria.domain.enums.connection.QualityLevel;
@@ -10,12 +12,14 @@ import org.kopingenieria.exception.exceptions.ConnectionPoolException;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class DefaultConnectionPoolService {
 
     private final DefaultConnectionPool connectionPool;
+    private final DefaultConnectionFactory connectionFactory;
 
     public DefaultConnectionPool createDefaultPool(List<String> clients) throws ConnectionPoolException {
         return createCustomPool(
@@ -34,7 +38,7 @@ public class DefaultConnectionPoolService {
     public DefaultConnectionPool createCustomPool(DefaultConnectionPool.PoolConfig config, List<String> clients)
             throws ConnectionPoolException {
         try {
-            return new DefaultConnectionPool(config, clients);
+            return new DefaultConnectionPool(config, clients, connectionFactory);
         } catch (Exception e) {
             throw new ConnectionPoolException("Error al crear pool de conexiones", e);
         }
@@ -50,6 +54,20 @@ public class DefaultConnectionPoolService {
         connectionPool.releaseConnection(connection, clientId);
     }
 
+    public void releaseConnection(DefaultConnectionPool.PooledConnection connection, String clientId, boolean failed)
+            throws Exception {
+        connectionPool.releaseConnection(connection, clientId, failed);
+    }
+
+    public <T> CompletableFuture<T> withConnection(UrlType urlType, String clientId,
+                                                   Function<DefaultConnectionImpl, CompletableFuture<T>> operation) {
+        return connectionPool.withConnection(urlType, clientId, operation);
+    }
+
+    public void markSuspect(DefaultConnectionPool.PooledConnection connection) {
+        connectionPool.markSuspect(connection);
+    }
+
     public CompletableFuture<ConnectionResponse> validateConnection(
             DefaultConnectionPool.PooledConnection connection) throws Exception {
         return connection.validateConnection()
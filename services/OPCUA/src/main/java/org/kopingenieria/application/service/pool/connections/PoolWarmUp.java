@@ -0,0 +1,116 @@
+package org.kopingenieria.application.service.pool.connections;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.kopingenieria.application.service.pool.connections.bydefault.DefaultConnectionPool;
+import org.kopingenieria.application.service.pool.connections.user.UserConnectionPool;
+import org.kopingenieria.domain.enums.connection.UrlType;
+import org.kopingenieria.util.helper.WheelTimer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calentamiento de los pools de conexiones al arrancar.
+ * <p>
+ * Con {@code opcua.pool.warmup.enabled} se abren en paralelo, con concurrencia acotada, las
+ * conexiones minimas de cada endpoint configurado, y la aplicacion se mantiene en
+ * {@link ReadinessState#REFUSING_TRAFFIC} hasta que termina. Si no llega a abrirse ninguna
+ * conexion se sigue rechazando trafico y se reintenta cada {@code retryDelay} ms.
+ */
+@Slf4j
+@Component("poolWarmUp")
+@RequiredArgsConstructor
+public class PoolWarmUp {
+
+    private final DefaultConnectionPool defaultConnectionPool;
+    private final UserConnectionPool userConnectionPool;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WheelTimer wheelTimer;
+
+    @Value("${opcua.pool.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${opcua.pool.warmup.endpoints:}")
+    private List<UrlType> endpoints;
+
+    @Value("${opcua.pool.warmup.concurrency:4}")
+    private int concurrency;
+
+    @Value("${opcua.pool.warmup.timeout:60000}")
+    private long timeout;
+
+    @Value("${opcua.pool.warmup.retryDelay:10000}")
+    private long retryDelay;
+
+    @Getter
+    private volatile boolean warm;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || endpoints == null || endpoints.isEmpty()) {
+            warm = true;
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        attemptWarmUp();
+    }
+
+    private void attemptWarmUp() {
+        long start = System.currentTimeMillis();
+        log.info("Calentando pools de conexiones para {} (concurrencia {})", endpoints, concurrency);
+        CompletableFuture<Void> warming;
+        try {
+            warming = CompletableFuture.allOf(
+                    defaultConnectionPool.warmUp(endpoints, concurrency),
+                    userConnectionPool.warmUp(endpoints, concurrency));
+        } catch (RuntimeException e) {
+            warming = CompletableFuture.failedFuture(e);
+        }
+        wheelTimer.orTimeout(warming, timeout, TimeUnit.MILLISECONDS)
+                .whenComplete((v, ex) -> {
+                    int warmed = warmedConnections();
+                    if (warmed == 0) {
+                        log.error("No se pudo abrir ninguna conexion de los pools; se sigue rechazando trafico "
+                                + "y se reintenta en {} ms", retryDelay, ex);
+                        wheelTimer.schedule(this::attemptWarmUp, retryDelay, TimeUnit.MILLISECONDS);
+                        return;
+                    }
+                    if (ex != null) {
+                        // Hay conexiones abiertas: el pool completara el resto bajo demanda
+                        log.warn("El calentamiento de los pools termino con {} conexiones abiertas", warmed, ex);
+                    } else {
+                        log.info("Pools de conexiones calientes ({} conexiones) en {} ms", warmed,
+                                System.currentTimeMillis() - start);
+                    }
+                    warm = true;
+                    AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+                });
+    }
+
+    private int warmedConnections() {
+        return endpoints.stream()
+                .mapToInt(url -> defaultConnectionPool.getConnectionCount(url) + userConnectionPool.getConnectionCount(url))
+                .sum();
+    }
+
+    /**
+     * Spring publica ACCEPTING_TRAFFIC al terminar el arranque; mientras el pool no este
+     * caliente se revierte.
+     */
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (enabled && !warm && event.getSource() != this
+                && event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+}
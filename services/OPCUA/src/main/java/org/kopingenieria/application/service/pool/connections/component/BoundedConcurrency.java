@@ -0,0 +1,43 @@
+package org.kopingenieria.application.service.pool.connections.component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta tareas asincronas con un maximo de {@code concurrency} en curso a la vez,
+ * sin bloquear hilos: cada tarea que termina arranca la siguiente.
+ */
+public final class BoundedConcurrency {
+
+    private BoundedConcurrency() {}
+
+    public static CompletableFuture<Void> run(List<Supplier<CompletableFuture<?>>> tasks, int concurrency) {
+        Iterator<Supplier<CompletableFuture<?>>> pending = tasks.iterator();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, concurrency); i++) {
+            workers.add(next(pending));
+        }
+        return CompletableFuture.allOf(workers.toArray(new CompletableFuture[0]));
+    }
+
+    private static CompletableFuture<Void> next(Iterator<Supplier<CompletableFuture<?>>> pending) {
+        Supplier<CompletableFuture<?>> task;
+        synchronized (pending) {
+            if (!pending.hasNext()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            task = pending.next();
+        }
+        CompletableFuture<?> result;
+        try {
+            result = task.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        // Un fallo no detiene al resto de tareas
+        return result.handle((value, ex) -> null).thenCompose(v -> next(pending));
+    }
+}
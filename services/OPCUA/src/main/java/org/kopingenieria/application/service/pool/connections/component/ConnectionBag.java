@@ -0,0 +1,231 @@
+package org.kopingenieria.application.service.pool.connections.component;
+
+import io.netty.util.Timeout;
+import org.kopingenieria.util.helper.WheelTimer;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Nucleo del pool de conexiones sin bloqueos globales.
+ * <p>
+ * Cada entrada lleva su propio estado atomico; prestar es un CAS IDLE -> IN_USE y devolver
+ * es volver a IDLE o entregarla directamente al primer waiter en orden FIFO. Cada hilo
+ * recuerda las entradas que devolvio para intentar reutilizarlas primero.
+ */
+public class ConnectionBag<T extends PoolEntry> {
+
+    private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+    private final List<T> entries = new CopyOnWriteArrayList<>();
+    private final Queue<CompletableFuture<T>> waiters = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<List<WeakReference<T>>> recentlyReturned = ThreadLocal.withInitial(ArrayList::new);
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final LongAdder acquireWaitNanos = new LongAdder();
+    private final LongAdder acquireCount = new LongAdder();
+    private final int maxSize;
+    private volatile boolean closed;
+
+    public ConnectionBag(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Presta una entrada libre sin esperar; devuelve {@code null} si no hay ninguna.
+     */
+    public T borrow() {
+        List<WeakReference<T>> local = recentlyReturned.get();
+        for (int i = local.size() - 1; i >= 0; i--) {
+            T entry = local.remove(i).get();
+            if (entry != null && entry.compareAndSetState(PoolEntry.State.IDLE, PoolEntry.State.IN_USE)) {
+                return entry;
+            }
+        }
+        for (T entry : entries) {
+            if (entry.compareAndSetState(PoolEntry.State.IDLE, PoolEntry.State.IN_USE)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Presta una entrada libre, crea una nueva si queda hueco o espera en cola FIFO hasta
+     * que se devuelva una; la espera la corta {@code timer} tras {@code timeoutMillis}.
+     */
+    public CompletableFuture<T> borrow(Supplier<T> factory, long timeoutMillis, WheelTimer timer,
+                                       Supplier<? extends Throwable> onTimeout) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Connection pool is shutdown"));
+        }
+        T entry = borrow();
+        if (entry != null) {
+            acquireCount.increment();
+            return CompletableFuture.completedFuture(entry);
+        }
+        if (reserveSlot()) {
+            acquireCount.increment();
+            try {
+                T created = factory.get();
+                created.setState(PoolEntry.State.IN_USE);
+                entries.add(created);
+                return CompletableFuture.completedFuture(created);
+            } catch (RuntimeException e) {
+                reserved.decrementAndGet();
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        long waitStart = System.nanoTime();
+        CompletableFuture<T> waiter = new CompletableFuture<>();
+        waiter.whenComplete((result, ex) -> {
+            acquireWaitNanos.add(System.nanoTime() - waitStart);
+            acquireCount.increment();
+        });
+        waiters.offer(waiter);
+        // Una entrada devuelta entre el primer intento y el alta del waiter no debe quedarse sin entregar
+        T late = borrow();
+        if (late != null && !waiter.complete(late)) {
+            requite(late);
+        }
+        if (!waiter.isDone()) {
+            Timeout expiry = timer.schedule(() -> {
+                if (waiter.completeExceptionally(onTimeout.get())) {
+                    waiters.remove(waiter);
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            waiter.whenComplete((result, ex) -> expiry.cancel());
+        } else {
+            waiters.remove(waiter);
+        }
+        return waiter;
+    }
+
+    /**
+     * Devuelve una entrada prestada: pasa directamente al waiter mas antiguo o queda libre.
+     */
+    public void requite(T entry) {
+        if (entry.getState() == PoolEntry.State.EVICTED) {
+            return;
+        }
+        entry.setState(PoolEntry.State.IDLE);
+        if (handOff(entry)) {
+            return;
+        }
+        List<WeakReference<T>> local = recentlyReturned.get();
+        if (local.size() < MAX_THREAD_LOCAL_ENTRIES) {
+            local.add(new WeakReference<>(entry));
+        }
+    }
+
+    /**
+     * Añade una entrada libre creada fuera de {@link #borrow(Supplier, long, WheelTimer, Supplier)}.
+     */
+    public boolean add(T entry) {
+        if (closed || !reserveSlot()) {
+            return false;
+        }
+        entry.setState(PoolEntry.State.IDLE);
+        entries.add(entry);
+        handOff(entry);
+        return true;
+    }
+
+    /**
+     * Marca una entrada libre como en validacion para que nadie la preste mientras tanto.
+     */
+    public boolean reserve(T entry) {
+        return entry.compareAndSetState(PoolEntry.State.IDLE, PoolEntry.State.VALIDATING);
+    }
+
+    public void unreserve(T entry) {
+        if (entry.compareAndSetState(PoolEntry.State.VALIDATING, PoolEntry.State.IDLE)) {
+            handOff(entry);
+        }
+    }
+
+    /**
+     * Retira la entrada del pool; solo la primera llamada tiene efecto.
+     */
+    public boolean remove(T entry) {
+        PoolEntry.State current = entry.getState();
+        while (current != PoolEntry.State.EVICTED) {
+            if (entry.compareAndSetState(current, PoolEntry.State.EVICTED)) {
+                entries.remove(entry);
+                reserved.decrementAndGet();
+                return true;
+            }
+            current = entry.getState();
+        }
+        return false;
+    }
+
+    public List<T> values(PoolEntry.State state) {
+        return entries.stream().filter(entry -> entry.getState() == state).toList();
+    }
+
+    public List<T> values() {
+        return List.copyOf(entries);
+    }
+
+    public int size() {
+        return reserved.get();
+    }
+
+    public int getWaitingCount() {
+        return waiters.size();
+    }
+
+    /**
+     * Espera media de los prestamos desde la ultima llamada, en milisegundos; los prestamos
+     * servidos sin esperar cuentan como cero.
+     */
+    public long drainAverageAcquireWaitMillis() {
+        long count = acquireCount.sumThenReset();
+        long waited = acquireWaitNanos.sumThenReset();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waited / count);
+    }
+
+    public void close() {
+        closed = true;
+        CompletableFuture<T> waiter;
+        while ((waiter = waiters.poll()) != null) {
+            waiter.completeExceptionally(new IllegalStateException("Connection pool is shutdown"));
+        }
+    }
+
+    private boolean handOff(T entry) {
+        while (!waiters.isEmpty()) {
+            if (!entry.compareAndSetState(PoolEntry.State.IDLE, PoolEntry.State.IN_USE)) {
+                // Otro hilo se la llevo primero
+                return true;
+            }
+            CompletableFuture<T> waiter = waiters.poll();
+            if (waiter != null && waiter.complete(entry)) {
+                return true;
+            }
+            // El waiter ya habia expirado: la entrada vuelve a estar libre para el siguiente
+            entry.setState(PoolEntry.State.IDLE);
+        }
+        return false;
+    }
+
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = reserved.get();
+            if (current >= maxSize) {
+                return false;
+            }
+        } while (!reserved.compareAndSet(current, current + 1));
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+package org.kopingenieria.application.service.pool.connections.component;
+
+import io.netty.util.Timeout;
+import lombok.extern.slf4j.Slf4j;
+import org.kopingenieria.domain.enums.connection.UrlType;
+import org.kopingenieria.util.helper.WheelTimer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Avisa de las conexiones que siguen prestadas pasado {@code threshold}. La pila del hilo que
+ * la obtuvo solo se captura con {@code captureStack}, porque crearla en cada prestamo tiene coste.
+ * Un umbral de cero desactiva el aviso, pero se sigue midiendo cuanto se retiene cada conexion.
+ */
+@Slf4j
+public class ConnectionLeakDetector {
+
+    private final Duration threshold;
+    private final boolean captureStack;
+    private final WheelTimer timer;
+    private final PoolMetrics metrics;
+    private final Map<PoolEntry, Lease> leases = new ConcurrentHashMap<>();
+
+    private record Lease(long acquiredAt, UrlType endpoint, Throwable acquiredBy, Timeout check) {
+    }
+
+    public ConnectionLeakDetector(Duration threshold, boolean captureStack, WheelTimer timer,
+                                  PoolMetrics metrics) {
+        this.threshold = threshold;
+        this.captureStack = captureStack;
+        this.timer = timer;
+        this.metrics = metrics;
+    }
+
+    public void onAcquire(PoolEntry entry, UrlType endpoint, Object description) {
+        long acquiredAt = System.nanoTime();
+        Throwable acquiredBy = captureStack ? new Throwable("Conexion obtenida aqui") : null;
+        Timeout check = null;
+        if (!threshold.isZero() && !threshold.isNegative()) {
+            check = timer.schedule(() -> reportLeak(entry, endpoint, description, acquiredAt, acquiredBy),
+                    threshold.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        Lease previous = leases.put(entry, new Lease(acquiredAt, endpoint, acquiredBy, check));
+        if (previous != null && previous.check() != null) {
+            previous.check().cancel();
+        }
+    }
+
+    public void onRelease(PoolEntry entry) {
+        Lease lease = leases.remove(entry);
+        if (lease == null) {
+            return;
+        }
+        if (lease.check() != null) {
+            lease.check().cancel();
+        }
+        metrics.recordHold(lease.endpoint(), System.nanoTime() - lease.acquiredAt());
+    }
+
+    private void reportLeak(PoolEntry entry, UrlType endpoint, Object description, long acquiredAt,
+                            Throwable acquiredBy) {
+        Lease lease = leases.get(entry);
+        if (lease == null || lease.acquiredAt() != acquiredAt) {
+            return;
+        }
+        metrics.recordLeak(endpoint);
+        long heldMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - acquiredAt);
+        if (acquiredBy != null) {
+            log.warn("Posible fuga: la conexion {} lleva {} ms prestada", description, heldMillis, acquiredBy);
+        } else {
+            log.warn("Posible fuga: la conexion {} lleva {} ms prestada (activar captura de pila para ver quien la obtuvo)",
+                    description, heldMillis);
+        }
+    }
+}
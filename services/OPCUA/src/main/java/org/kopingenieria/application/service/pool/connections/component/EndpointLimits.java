@@ -0,0 +1,4 @@
+package org.kopingenieria.application.service.pool.connections.component;
+
+public record EndpointLimits(int minPoolSize, int maxPoolSize) {
+}
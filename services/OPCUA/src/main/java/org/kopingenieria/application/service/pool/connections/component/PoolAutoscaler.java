@@ -0,0 +1,59 @@
+package org.kopingenieria.application.service.pool.connections.component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decide el tamaño objetivo de cada particion del pool a partir de su uso.
+ * <p>
+ * Crece en cuanto hay peticiones esperando, la ocupacion supera {@code scaleUpUtilization}
+ * o la espera media supera {@code maxAcquireWaitMillis}. Solo decrece tras
+ * {@code scaleDownCycles} evaluaciones seguidas por debajo de {@code scaleDownUtilization},
+ * de modo que un pico aislado no abre y cierra sesiones continuamente.
+ */
+public class PoolAutoscaler {
+
+    private final double scaleUpUtilization;
+    private final double scaleDownUtilization;
+    private final long maxAcquireWaitMillis;
+    private final int scaleDownCycles;
+    private final Map<Object, Integer> lowCycles = new ConcurrentHashMap<>();
+
+    public PoolAutoscaler(double scaleUpUtilization, double scaleDownUtilization, long maxAcquireWaitMillis,
+                          int scaleDownCycles) {
+        this.scaleUpUtilization = scaleUpUtilization;
+        this.scaleDownUtilization = scaleDownUtilization;
+        this.maxAcquireWaitMillis = maxAcquireWaitMillis;
+        this.scaleDownCycles = Math.max(1, scaleDownCycles);
+    }
+
+    public int targetSize(Object partition, int size, int inUse, int waiting, long averageWaitMillis,
+                          EndpointLimits limits) {
+        double utilization = size == 0 ? (waiting > 0 ? 1.0 : 0.0) : (double) inUse / size;
+
+        if (waiting > 0 || utilization >= scaleUpUtilization || averageWaitMillis > maxAcquireWaitMillis) {
+            lowCycles.remove(partition);
+            return clamp(size + Math.max(1, waiting), limits);
+        }
+        if (utilization <= scaleDownUtilization) {
+            int cycles = lowCycles.merge(partition, 1, Integer::sum);
+            if (cycles >= scaleDownCycles) {
+                lowCycles.remove(partition);
+                // Tamaño con el que la carga actual quedaria justo por debajo del umbral de crecimiento
+                int needed = (int) Math.ceil(inUse / scaleUpUtilization);
+                return clamp(Math.min(size - 1, needed), limits);
+            }
+        } else {
+            lowCycles.remove(partition);
+        }
+        return clamp(size, limits);
+    }
+
+    public void forget(Object partition) {
+        lowCycles.remove(partition);
+    }
+
+    private int clamp(int size, EndpointLimits limits) {
+        return Math.max(limits.minPoolSize(), Math.min(limits.maxPoolSize(), size));
+    }
+}
@@ -0,0 +1,31 @@
+package org.kopingenieria.application.service.pool.connections.component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Estado atomico de una entrada del pool. Las transiciones se hacen por CAS, de modo que
+ * prestar, devolver o validar una conexion no necesita ningun bloqueo global.
+ */
+public abstract class PoolEntry {
+
+    public enum State {
+        IDLE,
+        IN_USE,
+        VALIDATING,
+        EVICTED
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.IDLE);
+
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean compareAndSetState(State expected, State update) {
+        return state.compareAndSet(expected, update);
+    }
+
+    void setState(State update) {
+        state.set(update);
+    }
+}
@@ -0,0 +1,102 @@
+package org.kopingenieria.application.service.pool.connections.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.kopingenieria.domain.enums.connection.UrlType;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Histogramas de latencia de un pool: espera para obtener conexion, tiempo que el llamador
+ * la retiene y duracion de cada validacion. Las metricas llevan las etiquetas {@code pool}
+ * (tipo de pool), {@code instance} (cada pool creado) y {@code endpoint} (particion), para
+ * que las series de pools y endpoints distintos no se mezclen.
+ */
+public class PoolMetrics {
+
+    private static final String UNASSIGNED = "unassigned";
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final Map<String, EndpointMeters> endpoints = new ConcurrentHashMap<>();
+
+    private final class EndpointMeters {
+        private final Timer acquireWait;
+        private final Timer holdTime;
+        private final Timer validationTime;
+        private final Counter acquireTimeouts;
+        private final Counter leaks;
+
+        private EndpointMeters(String endpoint) {
+            Tags endpointTags = tags.and("endpoint", endpoint);
+            this.acquireWait = histogram("opcua.pool.acquire.wait", "Espera hasta obtener una conexion", endpointTags);
+            this.holdTime = histogram("opcua.pool.hold", "Tiempo que se retiene una conexion", endpointTags);
+            this.validationTime = histogram("opcua.pool.validation", "Duracion de la validacion de una conexion",
+                    endpointTags);
+            this.acquireTimeouts = Counter.builder("opcua.pool.acquire.failures")
+                    .description("Peticiones de conexion que no se pudieron atender")
+                    .tags(endpointTags)
+                    .register(registry);
+            this.leaks = Counter.builder("opcua.pool.leaks")
+                    .description("Conexiones retenidas mas alla del umbral de fuga")
+                    .tags(endpointTags)
+                    .register(registry);
+        }
+
+        private List<Meter> meters() {
+            return List.of(acquireWait, holdTime, validationTime, acquireTimeouts, leaks);
+        }
+    }
+
+    public PoolMetrics(MeterRegistry registry, String pool) {
+        this.registry = registry;
+        this.tags = Tags.of("pool", pool, "instance", pool + "-" + INSTANCES.incrementAndGet());
+    }
+
+    public void recordAcquireWait(UrlType endpoint, long nanos, boolean acquired) {
+        EndpointMeters meters = forEndpoint(endpoint);
+        meters.acquireWait.record(nanos, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            meters.acquireTimeouts.increment();
+        }
+    }
+
+    public void recordHold(UrlType endpoint, long nanos) {
+        forEndpoint(endpoint).holdTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordValidation(UrlType endpoint, long nanos) {
+        forEndpoint(endpoint).validationTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLeak(UrlType endpoint) {
+        forEndpoint(endpoint).leaks.increment();
+    }
+
+    /**
+     * Da de baja las metricas de este pool; se llama al cerrarlo.
+     */
+    public void close() {
+        endpoints.values().forEach(meters -> meters.meters().forEach(registry::remove));
+        endpoints.clear();
+    }
+
+    private EndpointMeters forEndpoint(UrlType endpoint) {
+        return endpoints.computeIfAbsent(endpoint != null ? endpoint.name() : UNASSIGNED, EndpointMeters::new);
+    }
+
+    private Timer histogram(String name, String description, Tags endpointTags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(endpointTags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
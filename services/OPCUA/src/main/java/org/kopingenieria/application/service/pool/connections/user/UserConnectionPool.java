@@ -1,29 +1,47 @@
 package org.kopingenieria.application.service.pool.connections.user;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.annotation.PreDestroy;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.kopingenieria.api.response.connection.ConnectionResponse;
+import org.kopingenieria.application.service.connection.component.CircuitBreakerRegistry;
+import org.kopingenieria.application.service.connection.user.UserConnectionFactory;
 import org.kopingenieria.application.service.connection.user.UserConnectionImpl;
+import org.kopingenieria.application.service.pool.connections.component.BoundedConcurrency;
+import org.kopingenieria.application.service.pool.connections.component.ConnectionBag;
+import org.kopingenieria.application.service.pool.connections.component.ConnectionLeakDetector;
+import org.kopingenieria.application.service.pool.connections.component.EndpointLimits;
+import org.kopingenieria.application.service.pool.connections.component.PoolAutoscaler;
+import org.kopingenieria.application.service.pool.connections.component.PoolEntry;
+import org.kopingenieria.application.service.pool.connections.component.PoolMetrics;
 import org.kopingenieria.domain.enums.connection.ConnectionStatus;
 import org.kopingenieria.domain.enums.connection.UrlType;
 import org.kopingenieria.domain.model.user.UserOpcUa;
 import org.kopingenieria.exception.exceptions.ConnectionPoolException;
+import org.kopingenieria.util.helper.WheelTimer;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Stream;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+@Slf4j
 @Component( "userConnectionPool")
 @RequiredArgsConstructor
 public class UserConnectionPool implements AutoCloseable {
@@ -31,6 +49,9 @@ public class UserConnectionPool implements AutoCloseable {
     private static final int DEFAULT_POOL_SIZE = 10;
     private static final Duration HEALTH_CHECK_INTERVAL = Duration.ofMinutes(1);
     private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration AUTOSCALE_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10);
+    private static final Duration VALIDATION_IDLE_THRESHOLD = Duration.ofMillis(500);
 
     @Data
     @Builder
@@ -41,23 +62,61 @@ public class UserConnectionPool implements AutoCloseable {
         private final Duration healthCheckInterval;
         private final int maxRetryAttempts;
         private final boolean enableBackoffRetry;
+        private final Map<UrlType, EndpointLimits> endpointLimits;
+        @Builder.Default
+        private final boolean autoscaleEnabled = true;
+        @Builder.Default
+        private final Duration autoscaleInterval = AUTOSCALE_INTERVAL;
+        @Builder.Default
+        private final Duration idleTimeout = IDLE_TIMEOUT;
+        @Builder.Default
+        private final Duration maxAcquireWait = Duration.ofMillis(200);
+        @Builder.Default
+        private final double scaleUpUtilization = 0.8;
+        @Builder.Default
+        private final double scaleDownUtilization = 0.3;
+        @Builder.Default
+        private final int scaleDownCycles = 4;
+        @Builder.Default
+        private final Duration leakDetectionThreshold = Duration.ZERO;
+        @Builder.Default
+        private final boolean leakStackSampling = false;
+        @Builder.Default
+        private final Duration validationIdleThreshold = VALIDATION_IDLE_THRESHOLD;
+        @Builder.Default
+        private final MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+        public EndpointLimits limitsFor(UrlType url) {
+            EndpointLimits limits = endpointLimits != null ? endpointLimits.get(url) : null;
+            return limits != null ? limits : new EndpointLimits(minPoolSize, maxPoolSize);
+        }
     }
 
-    private final BlockingQueue<PooledConnection> availableConnections;
-    private final Map<String, PooledConnection> activeConnections;
-    private final ReentrantReadWriteLock poolLock;
-    private final ScheduledExecutorService healthCheckExecutor;
+    private final ConnectionBag<PooledConnection> unassigned;
+    private final Map<UrlType, ConnectionBag<PooledConnection>> partitions;
+    private final WheelTimer timer;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final UserConnectionFactory connectionFactory;
+    private final List<CompletableFuture<Void>> periodicTasks = new CopyOnWriteArrayList<>();
+    private final Set<UrlType> growing = ConcurrentHashMap.newKeySet();
     private final PoolConfig config;
+    private final List<String> clientIds;
+    private final PoolAutoscaler autoscaler;
+    private final PoolMetrics metrics;
+    private final ConnectionLeakDetector leakDetector;
     private volatile boolean isShutdown;
 
     @Data
-    private class PooledConnection {
+    @EqualsAndHashCode(callSuper = false, onlyExplicitlyIncluded = true)
+    private class PooledConnection extends PoolEntry {
+        @EqualsAndHashCode.Include
         private final String connectionId;
         private final UserConnectionImpl connection;
         private volatile LocalDateTime lastUsed;
         private volatile ConnectionStatus status;
         private AtomicInteger failureCount;
         private UrlType currentUrl;
+        private volatile boolean suspect;
 
         public PooledConnection(UserConnectionImpl connection) {
             this.connectionId = UUID.randomUUID().toString();
@@ -65,13 +124,41 @@ public class UserConnectionPool implements AutoCloseable {
             this.lastUsed = LocalDateTime.now();
             this.status = ConnectionStatus.DISCONNECTED;
             this.failureCount = new AtomicInteger(0);
+            connection.setDemand(this::hasDemand);
+        }
+
+        /**
+         * Una conexion validada y usada hace menos de {@code validationIdleThreshold} se entrega
+         * sin ping; las sospechosas o inactivas mas tiempo se validan antes de prestarse.
+         */
+        private boolean needsValidation() {
+            return suspect || status != ConnectionStatus.CONNECTED
+                    || lastUsed.isBefore(LocalDateTime.now().minus(config.getValidationIdleThreshold()));
+        }
+
+        /**
+         * Una reconexion es prioritaria si la conexion se esta entregando a un llamador o si hay
+         * peticiones esperando conexion para su endpoint.
+         */
+        private boolean hasDemand() {
+            return getState() == PoolEntry.State.IN_USE
+                    || (currentUrl != null && partitionFor(currentUrl).getWaitingCount() > 0);
         }
 
         public CompletableFuture<Boolean> validateConnection() throws Exception {
-            return connection.ping()
+            long start = System.nanoTime();
+            CompletableFuture<ConnectionResponse> ping;
+            try {
+                // Tras un fallo o una marca de sospecha el trafico reciente no basta: se pregunta al servidor
+                ping = connection.ping(suspect || failureCount.get() > 0);
+            } catch (Exception e) {
+                ping = CompletableFuture.failedFuture(e);
+            }
+            return ping
                     .thenApply(response -> {
                         if (response.getStatus().equals(ConnectionStatus.CONNECTED)) {
                             failureCount.set(0);
+                            suspect = false;
                             status = ConnectionStatus.CONNECTED;
                             return true;
                         }
@@ -81,11 +168,19 @@ public class UserConnectionPool implements AutoCloseable {
                     .exceptionally(ex -> {
                         handleFailure();
                         return false;
-                    });
+                    })
+                    .whenComplete((result, ex) -> metrics.recordValidation(currentUrl, System.nanoTime() - start));
+        }
+
+        private void markConnected() {
+            failureCount.set(0);
+            suspect = false;
+            status = ConnectionStatus.CONNECTED;
         }
 
         private void handleFailure() {
             int failures = failureCount.incrementAndGet();
+            suspect = true;
             status = ConnectionStatus.ERROR;
             if (failures >= config.getMaxRetryAttempts()) {
                 status = ConnectionStatus.FAILED;
@@ -100,173 +195,437 @@ public class UserConnectionPool implements AutoCloseable {
         }
     }
 
-    public UserConnectionPool(PoolConfig config, List<String>clientIds) throws ConnectionPoolException {
+    public UserConnectionPool(PoolConfig config, List<String>clientIds, UserConnectionFactory connectionFactory)
+            throws ConnectionPoolException {
         this.config = config;
-        this.availableConnections = new LinkedBlockingQueue<>(config.getMaxPoolSize());
-        this.activeConnections = new ConcurrentHashMap<>();
-        this.poolLock = new ReentrantReadWriteLock();
-        this.healthCheckExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.connectionFactory = connectionFactory;
+        this.clientIds = List.copyOf(clientIds);
+        this.unassigned = new ConnectionBag<>(config.getMaxPoolSize());
+        this.partitions = new ConcurrentHashMap<>();
+        this.timer = WheelTimer.shared();
+        this.circuitBreakers = CircuitBreakerRegistry.shared();
+        this.autoscaler = new PoolAutoscaler(config.getScaleUpUtilization(), config.getScaleDownUtilization(),
+                config.getMaxAcquireWait().toMillis(), config.getScaleDownCycles());
+        this.metrics = new PoolMetrics(config.getMeterRegistry(), "user");
+        this.leakDetector = new ConnectionLeakDetector(config.getLeakDetectionThreshold(),
+                config.isLeakStackSampling(), timer, metrics);
         this.isShutdown = false;
         initializePool(clientIds);
         startHealthCheck(clientIds.getFirst());
+        startAutoscaler();
     }
 
     private void initializePool(List<String>clientIds) throws ConnectionPoolException {
-        poolLock.writeLock().lock();
-        try {
-            for (int i = 0; i < config.getMinPoolSize(); i++) {
-                createAndAddConnection(clientIds.get(i));
-            }
-        } finally {
-            poolLock.writeLock().unlock();
+        for (int i = 0; i < config.getMinPoolSize(); i++) {
+            createAndAddConnection(clientIds.get(i));
         }
     }
 
     private void createAndAddConnection(String clientId) throws ConnectionPoolException {
+        unassigned.add(createConnection(clientId));
+    }
+
+    private void createAndAddConnection(String clientId, UrlType url) throws ConnectionPoolException {
+        PooledConnection connection = createConnection(clientId);
+        connection.setCurrentUrl(url);
+        partitionFor(url).add(connection);
+    }
+
+    private ConnectionBag<PooledConnection> partitionFor(UrlType url) {
+        if (url == null) {
+            return unassigned;
+        }
+        return partitions.computeIfAbsent(url, u -> new ConnectionBag<>(config.limitsFor(u).maxPoolSize()));
+    }
+
+    /**
+     * Para un endpoint sin conexiones libres se usa primero una de las creadas al iniciar el
+     * pool, que aun no tiene sesion con ningun servidor, y solo despues se crea una nueva.
+     */
+    private PooledConnection adoptOrCreate(String clientId, UrlType url) throws ConnectionPoolException {
+        PooledConnection spare = unassigned.borrow();
+        if (spare != null && unassigned.remove(spare)) {
+            spare.setCurrentUrl(url);
+            return spare;
+        }
+        PooledConnection connection = createConnection(clientId);
+        connection.setCurrentUrl(url);
+        return connection;
+    }
+
+    private PooledConnection createConnection(String clientId) throws ConnectionPoolException {
         try {
-            UserConnectionImpl connection = new UserConnectionImpl(clientId);
-            PooledConnection pooledConnection = new PooledConnection(connection);
-            availableConnections.offer(pooledConnection);
+            return new PooledConnection(connectionFactory.create(clientId));
         } catch (Exception e) {
             throw new ConnectionPoolException("Failed to create connection", e);
         }
     }
 
-    public CompletableFuture<PooledConnection> acquireConnection(UrlType url, String clientId) {
+    /**
+     * Conecta en paralelo, con como mucho {@code concurrency} conexiones a la vez, las que
+     * falten hasta el minimo de cada endpoint indicado.
+     */
+    public CompletableFuture<Void> warmUp(Collection<UrlType> endpoints, int concurrency) {
         validatePoolState();
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                PooledConnection connection = availableConnections.poll(
-                        config.getConnectionTimeout().toMillis(), TimeUnit.MILLISECONDS);
-
-                if (connection == null) {
-                    if (getTotalConnections() < config.getMaxPoolSize()) {
-                        connection = availableConnections.poll();
-                        if (connection == null) {
-                            createAndAddConnection(clientId);
-                        }
-                    } else {
-                        throw new ConnectionPoolException("Connection pool exhausted");
-                    }
-                }
-                assert connection != null;
-                return prepareConnection(connection, url);
-            } catch (Exception e) {
-                try {
-                    throw new ConnectionPoolException("Failed to acquire connection", e);
-                } catch (ConnectionPoolException ex) {
-                    throw new RuntimeException(ex);
-                }
+        List<Supplier<CompletableFuture<?>>> tasks = new ArrayList<>();
+        for (UrlType url : endpoints) {
+            int missing = config.limitsFor(url).minPoolSize() - partitionFor(url).size();
+            for (int i = 0; i < missing; i++) {
+                String clientId = clientIds.get(i % clientIds.size());
+                tasks.add(() -> warmConnection(url, clientId));
             }
-        });
+        }
+        return BoundedConcurrency.run(tasks, concurrency);
     }
 
-    private PooledConnection prepareConnection(PooledConnection connection, UrlType url) throws Exception {
-        return connection.validateConnection()
-                .thenCompose(valid -> {
-                    if (!valid) {
-                        try {
-                            return connection.reconnect()
-                                    .thenApply(response -> {
-                                        if (!response.getStatus().equals(ConnectionStatus.CONNECTED)) {
-                                            try {
-                                                throw new ConnectionPoolException("Failed to reconnect");
-                                            } catch (ConnectionPoolException e) {
-                                                throw new RuntimeException(e);
-                                            }
-                                        }
-                                        return connection;
-                                    });
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
+    private CompletableFuture<Void> warmConnection(UrlType url, String clientId) {
+        PooledConnection connection;
+        try {
+            connection = adoptOrCreate(clientId, url);
+        } catch (ConnectionPoolException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return openSession(connection, url)
+                .handle((conn, ex) -> {
+                    if (ex == null && partitionFor(url).add(conn)) {
+                        return null;
+                    }
+                    closeQuietly(connection);
+                    if (ex != null) {
+                        throw ex instanceof CompletionException ce ? ce : new CompletionException(ex);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Abre la sesion de una conexion que aun no la tiene (recien creada o sin calentar).
+     */
+    private CompletableFuture<PooledConnection> openSession(PooledConnection connection, UrlType url) {
+        try {
+            return connection.getConnection().connect(url)
+                    .thenApply(response -> {
+                        if (response.getStatus() != ConnectionStatus.CONNECTED) {
+                            connection.handleFailure();
+                            throw new CompletionException(
+                                    new ConnectionPoolException("Failed to connect to " + url.getUrl()));
                         }
+                        connection.markConnected();
+                        return connection;
+                    });
+        } catch (Exception e) {
+            connection.handleFailure();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Numero de conexiones con sesion asignadas a {@code url}.
+     */
+    public int getConnectionCount(UrlType url) {
+        ConnectionBag<PooledConnection> partition = partitions.get(url);
+        return partition == null ? 0 : partition.size();
+    }
+
+    private void closeQuietly(PooledConnection connection) {
+        try {
+            connection.getConnection().close();
+        } catch (Exception e) {
+            // La conexion no llego a entrar en el pool
+        }
+    }
+
+    public CompletableFuture<PooledConnection> acquireConnection(UrlType url, String clientId) {
+        validatePoolState();
+        if (url != null && !circuitBreakers.forEndpoint(url.getUrl()).allowsRequests()) {
+            return CompletableFuture.failedFuture(
+                    new ConnectionPoolException("Circuito abierto para " + url.getUrl()));
+        }
+        long start = System.nanoTime();
+        return partitionFor(url).borrow(
+                        () -> {
+                            try {
+                                return adoptOrCreate(clientId, url);
+                            } catch (ConnectionPoolException e) {
+                                throw new CompletionException(e);
+                            }
+                        },
+                        config.getConnectionTimeout().toMillis(),
+                        timer,
+                        () -> new ConnectionPoolException("Connection pool exhausted"))
+                .thenCompose(conn -> prepareConnection(conn, url, clientId))
+                .whenComplete((conn, ex) -> {
+                    metrics.recordAcquireWait(url, System.nanoTime() - start, ex == null);
+                    if (conn != null) {
+                        leakDetector.onAcquire(conn, url, conn.getConnectionId());
                     }
-                    return CompletableFuture.completedFuture(connection);
-                })
+                });
+    }
+
+    private CompletableFuture<PooledConnection> prepareConnection(PooledConnection connection, UrlType url,
+                                                                  String clientId) {
+        if (!connection.needsValidation()) {
+            connection.setCurrentUrl(url);
+            connection.setLastUsed(LocalDateTime.now());
+            return CompletableFuture.completedFuture(connection);
+        }
+        CompletableFuture<PooledConnection> prepared;
+        if (!connection.getConnection().hasSession()) {
+            // Sin sesion un ping solo puede fallar: se conecta directamente
+            prepared = openSession(connection, url);
+        } else {
+            prepared = validateOrReconnect(connection);
+        }
+        return prepared
                 .thenApply(conn -> {
                     conn.setCurrentUrl(url);
                     conn.setLastUsed(LocalDateTime.now());
-                    activeConnections.put(conn.getConnectionId(), conn);
                     return conn;
                 })
-                .join();
+                .whenComplete((conn, ex) -> {
+                    if (ex != null) {
+                        // La conexion no se entrega: vuelve al pool o se sustituye si ha fallado
+                        try {
+                            releaseConnection(connection, clientId);
+                        } catch (Exception e) {
+                            ex.addSuppressed(e);
+                        }
+                    }
+                });
+    }
+
+    private CompletableFuture<PooledConnection> validateOrReconnect(PooledConnection connection) {
+        try {
+            return connection.validateConnection()
+                    .thenCompose(valid -> {
+                        if (!valid) {
+                            try {
+                                return connection.reconnect()
+                                        .thenApply(response -> {
+                                            if (!response.getStatus().equals(ConnectionStatus.CONNECTED)) {
+                                                throw new CompletionException(
+                                                        new ConnectionPoolException("Failed to reconnect"));
+                                            }
+                                            connection.markConnected();
+                                            return connection;
+                                        });
+                            } catch (Exception e) {
+                                throw new CompletionException(e);
+                            }
+                        }
+                        return CompletableFuture.completedFuture(connection);
+                    });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Presta una conexion para {@code url}, ejecuta {@code operation} con ella y la devuelve al
+     * pool; si la operacion falla se devuelve marcada como sospechosa.
+     */
+    public <T> CompletableFuture<T> withConnection(UrlType url, String clientId,
+                                                   Function<UserConnectionImpl, CompletableFuture<T>> operation) {
+        return acquireConnection(url, clientId)
+                .thenCompose(conn -> {
+                    CompletableFuture<T> result;
+                    try {
+                        result = operation.apply(conn.getConnection());
+                    } catch (RuntimeException e) {
+                        result = CompletableFuture.failedFuture(e);
+                    }
+                    return result.whenComplete((value, ex) -> {
+                        try {
+                            releaseConnection(conn, clientId, ex != null);
+                        } catch (Exception e) {
+                            log.warn("Error devolviendo la conexion {} al pool", conn.getConnectionId(), e);
+                        }
+                    });
+                });
     }
 
     public void releaseConnection(PooledConnection connection, String clientId) throws Exception {
+        releaseConnection(connection, clientId, false);
+    }
+
+    /**
+     * Devuelve la conexion al pool. Con {@code failed} (o si su sesion ya no esta conectada) queda
+     * como sospechosa: se valida en segundo plano y, en todo caso, antes de volver a prestarse.
+     */
+    public void releaseConnection(PooledConnection connection, String clientId, boolean failed) throws Exception {
         if (connection == null) return;
+        leakDetector.onRelease(connection);
+        if (failed || connection.getConnection().getCurrentStatus() != ConnectionStatus.CONNECTED) {
+            markSuspect(connection);
+        }
 
-        poolLock.writeLock().lock();
-        try {
-            activeConnections.remove(connection.getConnectionId());
-            if (connection.getStatus() != ConnectionStatus.FAILED) {
-                availableConnections.offer(connection);
-            } else {
-                replaceFailedConnection(connection,clientId);
+        if (connection.getStatus() != ConnectionStatus.FAILED && !isShutdown) {
+            connection.setLastUsed(LocalDateTime.now());
+            ConnectionBag<PooledConnection> partition = partitionFor(connection.getCurrentUrl());
+            partition.requite(connection);
+            if (connection.isSuspect()) {
+                // Se valida ya en segundo plano; si otro la presta antes, la validara al entregarla
+                validateIdleConnection(partition, connection, clientId);
             }
-        } finally {
-            poolLock.writeLock().unlock();
+        } else {
+            replaceFailedConnection(connection,clientId);
+        }
+    }
+
+    /**
+     * Marca la conexion como sospechosa tras un error durante su uso, para que se valide en
+     * segundo plano y antes de volver a prestarse.
+     */
+    public void markSuspect(PooledConnection connection) {
+        if (connection != null) {
+            connection.setSuspect(true);
         }
     }
 
     private void replaceFailedConnection(PooledConnection failedConnection, String clientId) throws Exception {
+            UrlType url = failedConnection.getCurrentUrl();
+            ConnectionBag<PooledConnection> partition = partitionFor(url);
+            if (!partition.remove(failedConnection)) {
+                return;
+            }
             failedConnection.getConnection().close();
-            if (!isShutdown && getTotalConnections() < config.getMinPoolSize()) {
-                createAndAddConnection(clientId);
+            if (isShutdown) {
+                return;
+            }
+            if (url == null) {
+                if (partition.size() < config.getMinPoolSize()) {
+                    createAndAddConnection(clientId);
+                }
+            } else if (partition.size() < config.limitsFor(url).minPoolSize()) {
+                createAndAddConnection(clientId, url);
             }
     }
 
     private void startHealthCheck(String clientId) {
-        healthCheckExecutor.scheduleAtFixedRate(
+        periodicTasks.add(timer.scheduleWithFixedDelay(
                 () -> performHealthCheck(clientId),
                 config.getHealthCheckInterval().toMillis(),
                 config.getHealthCheckInterval().toMillis(),
                 TimeUnit.MILLISECONDS
-        );
+        ));
     }
 
     private void performHealthCheck(String clientId) {
-        poolLock.readLock().lock();
-        try {
-            List<CompletableFuture<Void>> healthChecks = new ArrayList<>();
+        // Cada endpoint se valida por separado; las conexiones sin endpoint aun no tienen sesion
+        partitions.values().forEach(partition -> performHealthCheck(partition, clientId));
+    }
 
-            availableConnections.forEach(conn ->
-                    {
-                        try {
-                            healthChecks.add(conn.validateConnection()
-                                    .thenAccept(valid -> {
-                                        if (!valid) {
-                                            try {
-                                                handleUnhealthyConnection(conn,clientId);
-                                            } catch (Exception e) {
-                                                throw new RuntimeException(e);
-                                            }
-                                        }
-                                    }));
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
+    private void performHealthCheck(ConnectionBag<PooledConnection> partition, String clientId) {
+        List<CompletableFuture<Void>> healthChecks = new ArrayList<>();
+
+        // Solo se validan las conexiones libres que se consiguen reservar; las prestadas se ignoran
+        partition.values(PoolEntry.State.IDLE)
+                .forEach(conn -> healthChecks.add(validateIdleConnection(partition, conn, clientId)));
+
+        CompletableFuture.allOf(healthChecks.toArray(new CompletableFuture[0]))
+                .exceptionally(ex -> null);
+    }
+
+    private CompletableFuture<Void> validateIdleConnection(ConnectionBag<PooledConnection> partition,
+                                                           PooledConnection conn, String clientId) {
+        if (!partition.reserve(conn)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return conn.validateConnection()
+                    .thenAccept(valid -> {
+                        if (!valid) {
+                            try {
+                                handleUnhealthyConnection(conn,clientId);
+                            } catch (Exception e) {
+                                throw new CompletionException(e);
+                            }
+                        } else {
+                            partition.unreserve(conn);
                         }
-                    }
-            );
+                    });
+        } catch (Exception e) {
+            partition.unreserve(conn);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 
-            CompletableFuture.allOf(healthChecks.toArray(new CompletableFuture[0]))
-                    .exceptionally(ex -> null);
-        } finally {
-            poolLock.readLock().unlock();
+    private void startAutoscaler() {
+        if (!config.isAutoscaleEnabled()) {
+            return;
         }
+        periodicTasks.add(timer.scheduleWithFixedDelay(
+                this::autoscale,
+                config.getAutoscaleInterval().toMillis(),
+                config.getAutoscaleInterval().toMillis(),
+                TimeUnit.MILLISECONDS
+        ));
     }
 
-    private void handleUnhealthyConnection(PooledConnection connection, String clientId) throws Exception {
-        poolLock.writeLock().lock();
-        try {
-            availableConnections.remove(connection);
-            replaceFailedConnection(connection,clientId);
-        } finally {
-            poolLock.writeLock().unlock();
+    private void autoscale() {
+        partitions.forEach((url, partition) -> {
+            try {
+                autoscale(url, partition);
+            } catch (Exception e) {
+                log.warn("Error ajustando el tamaño del pool para {}", url, e);
+            }
+        });
+    }
+
+    private void autoscale(UrlType url, ConnectionBag<PooledConnection> partition) {
+        int size = partition.size();
+        int target = autoscaler.targetSize(url, size, partition.values(PoolEntry.State.IN_USE).size(),
+                partition.getWaitingCount(), partition.drainAverageAcquireWaitMillis(), config.limitsFor(url));
+        if (target > size) {
+            // Una ampliacion aun en curso no se solapa con la del siguiente ciclo
+            if (!growing.add(url)) {
+                return;
+            }
+            log.debug("Ampliando el pool de {} de {} a {} conexiones", url, size, target);
+            List<CompletableFuture<Void>> opening = new ArrayList<>();
+            for (int i = size; i < target; i++) {
+                opening.add(warmConnection(url, clientIds.get(i % clientIds.size()))
+                        .exceptionally(ex -> {
+                            log.debug("No se pudo abrir una conexion adicional para {}", url, ex);
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(opening.toArray(new CompletableFuture[0]))
+                    .whenComplete((v, ex) -> {
+                        growing.remove(url);
+                        if (partition.size() <= size) {
+                            log.warn("No se pudo ampliar el pool de {}: sigue con {} conexiones", url, partition.size());
+                        }
+                    });
+        } else if (target < size) {
+            retireIdleConnections(partition, size - target);
         }
     }
 
-    private int getTotalConnections() {
-        return availableConnections.size() + activeConnections.size();
+    /**
+     * Cierra como mucho {@code count} conexiones libres que lleven mas de {@code idleTimeout}
+     * sin usarse, empezando por las mas antiguas.
+     */
+    private void retireIdleConnections(ConnectionBag<PooledConnection> partition, int count) {
+        LocalDateTime idleSince = LocalDateTime.now().minus(config.getIdleTimeout());
+        partition.values(PoolEntry.State.IDLE).stream()
+                .filter(conn -> conn.getLastUsed().isBefore(idleSince))
+                .sorted(Comparator.comparing(PooledConnection::getLastUsed))
+                .limit(count)
+                .filter(partition::reserve)
+                .filter(partition::remove)
+                .forEach(conn -> {
+                    log.debug("Retirando conexion inactiva {} de {}", conn.getConnectionId(), conn.getCurrentUrl());
+                    closeQuietly(conn);
+                });
+    }
+
+    private void handleUnhealthyConnection(PooledConnection connection, String clientId) throws Exception {
+        replaceFailedConnection(connection,clientId);
+    }
+
+    public int getTotalConnections() {
+        return unassigned.size() + partitions.values().stream().mapToInt(ConnectionBag::size).sum();
     }
 
     private void validatePoolState() {
@@ -279,26 +638,22 @@ public class UserConnectionPool implements AutoCloseable {
     @Override
     public void close() {
         isShutdown = true;
-        healthCheckExecutor.shutdown();
-
-        poolLock.writeLock().lock();
-        try {
-            Stream.concat(
-                    availableConnections.stream(),
-                    activeConnections.values().stream()
-            ).forEach(conn -> {
-                try {
-                    conn.getConnection().close();
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
+        periodicTasks.forEach(task -> task.cancel(false));
+        metrics.close();
+        List<ConnectionBag<PooledConnection>> bags = new ArrayList<>(partitions.values());
+        bags.add(unassigned);
+        bags.forEach(bag -> {
+            bag.close();
+            bag.values().forEach(conn -> {
+                if (bag.remove(conn)) {
+                    try {
+                        conn.getConnection().close();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
                 }
             });
-
-            availableConnections.clear();
-            activeConnections.clear();
-        } finally {
-            poolLock.writeLock().unlock();
-        }
+        });
     }
 
 }
@@ -6,6 +6,7 @@ import org.eclipse.milo.opcua.sdk.client.api.identity.X509IdentityProvider;
 import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.MessageSecurityMode;
 import org.eclipse.milo.opcua.stack.core.types.structured.EndpointDescription;
+import org.kopingenieria.application.service.connection.user.UserConnectionFactory;
 import org.kopingenieria.application.service.pool.connections.user.UserConnectionPool;
 import org.kopingenieria.application.validators.contract.user.UserAuthenticationValidator;
 import org.kopingenieria.application.validators.user.UserAuthenticationValidatorImpl;
@@ -27,8 +28,9 @@ public class UserAuthenticationImpl implements UserAutentication {
     private static final UserAuthenticationValidator AUTHENTICATION_VALIDATOR = new UserAuthenticationValidatorImpl();
 
 
-    public UserAuthenticationImpl(UserConnectionPool.PoolConfig poolConfig, List<UserOpcUa> users) throws ConnectionPoolException {
-        this.pool = new UserConnectionPool(poolConfig,users);
+    public UserAuthenticationImpl(UserConnectionPool.PoolConfig poolConfig, List<UserOpcUa> users,
+                                  UserConnectionFactory connectionFactory) throws ConnectionPoolException {
+        this.pool = new UserConnectionPool(poolConfig,users,connectionFactory);
         this.isAuthenticated = false;
         this.userPoolManager = new OpcUaUserPoolManager();
     }
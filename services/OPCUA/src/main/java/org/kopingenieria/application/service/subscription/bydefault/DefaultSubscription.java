@@ -0,0 +1,41 @@
+package org.kopingenieria.application.service.subscription.bydefault;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.kopingenieria.api.response.subscription.SubscriptionResponse;
+import org.kopingenieria.application.service.subscription.component.DataChangeListener;
+import org.kopingenieria.domain.dto.SubscriptionDTO;
+import org.kopingenieria.domain.model.bydefault.DefaultSubscriptionConfiguration;
+import org.kopingenieria.domain.serialization.bydefault.DefaultSubscriptionSerializable;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface DefaultSubscription {
+
+    CompletableFuture<SubscriptionResponse> crearSuscripcion(String clientId, DefaultSubscriptionConfiguration configuracion,
+                                                             List<SubscriptionDTO> items) throws Exception;
+
+    CompletableFuture<SubscriptionResponse> crearSuscripcion(String clientId, DefaultSubscriptionSerializable suscripcion,
+                                                             List<SubscriptionDTO> items) throws Exception;
+
+    CompletableFuture<SubscriptionResponse> crearSuscripcion(String clientId, String nombre,
+                                                             List<SubscriptionDTO> items) throws Exception;
+
+    CompletableFuture<SubscriptionResponse> modificarSuscripcion(String subscriptionId,
+                                                                 DefaultSubscriptionConfiguration configuracion) throws Exception;
+
+    CompletableFuture<SubscriptionResponse> agregarItems(String subscriptionId, List<SubscriptionDTO> items) throws Exception;
+
+    CompletableFuture<SubscriptionResponse> modificarItems(String subscriptionId, List<SubscriptionDTO> items) throws Exception;
+
+    CompletableFuture<SubscriptionResponse> eliminarItems(String subscriptionId, List<String> nodeIds) throws Exception;
+
+    CompletableFuture<SubscriptionResponse> eliminarSuscripcion(String subscriptionId) throws Exception;
+
+    Flux<DataValue> flujo(String subscriptionId, SubscriptionDTO item) throws Exception;
+
+    void agregarListener(DataChangeListener listener);
+
+    void eliminarListener(DataChangeListener listener);
+}
@@ -0,0 +1,19 @@
+package org.kopingenieria.application.service.subscription.component;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import java.util.List;
+
+@FunctionalInterface
+public interface DataChangeListener {
+    void onDataChange(String clientId, String nodeId, DataValue value);
+
+    /**
+     * Variante que indica ademas la suscripcion que produjo el cambio; por defecto la ignora.
+     */
+    default void onDataChange(String subscriptionId, String clientId, String nodeId, DataValue value) {
+        onDataChange(clientId, nodeId, value);
+    }
+
+    default void onMonitoredItemsRemoved(String clientId, List<String> nodeIds) {
+    }
+}
@@ -0,0 +1,147 @@
+package org.kopingenieria.application.service.subscription.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.kopingenieria.domain.dto.SubscriptionDTO;
+import org.kopingenieria.exception.exceptions.SubscriptionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Expone los cambios de datos de los monitored items como {@link Flux} por suscripcion y nodo.
+ * Un unico monitored item alimenta a todos los suscriptores del nodo en esa suscripcion; cada
+ * suscriptor consume a su propio ritmo con un buffer acotado y el item se elimina cuando
+ * cancela el ultimo suscriptor.
+ */
+@Slf4j
+@Component("dataChangeStream")
+@RequiredArgsConstructor
+public class DataChangeStream implements DataChangeListener {
+
+    private final SubscriptionManagerComp subscriptionManager;
+    private final Map<String, NodeStream> streams = new ConcurrentHashMap<>();
+
+    @Value("${opcua.subscription.streamBufferSize:256}")
+    private int streamBufferSize;
+
+    private static final class NodeStream {
+        private Flux<DataValue> flux;
+        private volatile FluxSink<DataValue> sink;
+    }
+
+    @PostConstruct
+    public void init() {
+        subscriptionManager.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptionManager.removeListener(this);
+        streams.values().forEach(stream -> {
+            FluxSink<DataValue> sink = stream.sink;
+            if (sink != null) {
+                sink.complete();
+            }
+        });
+        streams.clear();
+    }
+
+    public Flux<DataValue> stream(String subscriptionId, SubscriptionDTO item) throws SubscriptionException {
+        if (subscriptionManager.getSubscription(subscriptionId).isEmpty()) {
+            throw new SubscriptionException("Suscripción no encontrada: " + subscriptionId);
+        }
+        String key = key(subscriptionId, item.nodeId());
+        NodeStream stream = streams.computeIfAbsent(key, k -> createStream(k, subscriptionId, item));
+        return stream.flux.onBackpressureBuffer(
+                streamBufferSize,
+                dropped -> log.debug("Suscriptor lento en el nodo {}, se descarta el valor mas antiguo", item.nodeId()),
+                BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    @Override
+    public void onDataChange(String clientId, String nodeId, DataValue value) {
+        // Los flujos van por suscripcion: se atienden en la variante con subscriptionId
+    }
+
+    @Override
+    public void onDataChange(String subscriptionId, String clientId, String nodeId, DataValue value) {
+        NodeStream stream = streams.get(key(subscriptionId, nodeId));
+        if (stream != null) {
+            FluxSink<DataValue> sink = stream.sink;
+            if (sink != null) {
+                sink.next(value);
+            }
+        }
+    }
+
+    private NodeStream createStream(String key, String subscriptionId, SubscriptionDTO item) {
+        NodeStream stream = new NodeStream();
+        stream.flux = Flux.<DataValue>create(sink -> {
+                    NodeStream current = streams.putIfAbsent(key, stream);
+                    if (current != null && current != stream) {
+                        sink.error(new SubscriptionException("El flujo del nodo " + item.nodeId() + " ya no está activo"));
+                        return;
+                    }
+                    stream.sink = sink;
+                    boolean owned = attach(subscriptionId, item, sink);
+                    sink.onDispose(() -> {
+                        stream.sink = null;
+                        streams.remove(key, stream);
+                        if (owned) {
+                            detach(subscriptionId, item.nodeId());
+                        }
+                    });
+                }, FluxSink.OverflowStrategy.LATEST)
+                .publish()
+                .refCount();
+        return stream;
+    }
+
+    private boolean attach(String subscriptionId, SubscriptionDTO item, FluxSink<DataValue> sink) {
+        try {
+            SubscriptionManagerComp.ManagedSubscription managed = subscriptionManager.getSubscription(subscriptionId)
+                    .orElseThrow(() -> new SubscriptionException("Suscripción no encontrada: " + subscriptionId));
+            if (managed.getMonitoredItems().containsKey(item.nodeId())) {
+                // El item ya existia: el flujo solo escucha y no lo elimina al cancelar
+                return false;
+            }
+            subscriptionManager.addMonitoredItems(subscriptionId, List.of(item))
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            sink.error(ex);
+                        } else if (!result.getMonitoredItems().containsKey(item.nodeId())) {
+                            sink.error(new SubscriptionException("No se pudo monitorizar el nodo " + item.nodeId()));
+                        }
+                    });
+            return true;
+        } catch (SubscriptionException e) {
+            sink.error(e);
+            return false;
+        }
+    }
+
+    private void detach(String subscriptionId, String nodeId) {
+        try {
+            subscriptionManager.removeMonitoredItems(subscriptionId, List.of(nodeId))
+                    .exceptionally(ex -> {
+                        log.warn("No se pudo eliminar el monitored item del nodo {}", nodeId, ex);
+                        return null;
+                    });
+        } catch (SubscriptionException e) {
+            log.debug("La suscripción {} ya no existe al cerrar el flujo del nodo {}", subscriptionId, nodeId);
+        }
+    }
+
+    private String key(String subscriptionId, String nodeId) {
+        return subscriptionId + "|" + nodeId;
+    }
+}
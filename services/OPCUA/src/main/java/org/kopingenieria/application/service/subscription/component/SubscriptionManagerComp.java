@@ -0,0 +1,750 @@
+package org.kopingenieria.application.service.subscription.component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DataChangeTrigger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemModifyRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.kopingenieria.domain.dto.SubscriptionDTO;
+import org.kopingenieria.domain.enums.communication.Operation;
+import org.kopingenieria.domain.enums.trigger.DeadbandType;
+import org.kopingenieria.exception.exceptions.SubscriptionException;
+import org.kopingenieria.util.helper.ClientLifecycle;
+import org.kopingenieria.util.helper.ClientLifecycleListener;
+import org.kopingenieria.util.helper.LivenessTracker;
+import org.kopingenieria.util.helper.NodeIdResolver;
+import org.kopingenieria.util.helper.OperationLimitsRegistry;
+import org.kopingenieria.util.loader.PropertiesLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * Crea, modifica y elimina suscripciones Milo y sus monitored items a partir de
+ * {@link SubscriptionDTO}, y reenvia los cambios de datos a los consumidores registrados.
+ * <p>
+ * Cada suscripcion logica se reparte en tantas suscripciones del servidor (shards) como
+ * exija {@code opcua.subscription.max-monitored-items}; los items se crean en lotes acotados
+ * por el limite MaxMonitoredItemsPerCall del servidor y los shards se reequilibran al
+ * eliminar items.
+ */
+@Slf4j
+@Component("subscriptionManager")
+@RequiredArgsConstructor
+public class SubscriptionManagerComp {
+
+    private static final String CLIENT_PROPERTIES = "opcuaclient.properties";
+    private static final String MAX_MONITORED_ITEMS_PROPERTY = "opcua.subscription.max-monitored-items";
+    private static final int DEFAULT_MAX_MONITORED_ITEMS = 1000;
+
+    private final NodeIdResolver nodeIdResolver;
+    private final OperationLimitsRegistry operationLimits;
+    private final LivenessTracker livenessTracker;
+    private final ClientLifecycle clientLifecycle;
+    private final Map<String, ManagedSubscription> subscriptions = new ConcurrentHashMap<>();
+    // clientId|nodeId -> shards que monitorizan el nodo, para no recorrer todas las suscripciones
+    private final Map<String, Set<Shard>> monitoredIndex = new ConcurrentHashMap<>();
+    private final List<DataChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Value("${opcua.subscription.createBatchSize:500}")
+    private int createBatchSize;
+
+    @Value("${opcua.communication.maxNodesPerRead:1000}")
+    private int maxNodesPerRead;
+
+    private int maxItemsPerSubscription = DEFAULT_MAX_MONITORED_ITEMS;
+
+    @Getter
+    public static class Shard {
+        private final UaSubscription subscription;
+        private final Map<String, UaMonitoredItem> monitoredItems = new ConcurrentHashMap<>();
+        private volatile long lastPublish;
+        private volatile boolean published;
+
+        Shard(UaSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        /**
+         * Cada respuesta de publicacion, con datos o keep-alive, confirma que los items del shard
+         * no tienen cambios pendientes de notificar.
+         */
+        void onPublish() {
+            lastPublish = System.nanoTime();
+            published = true;
+        }
+
+        void invalidatePublish() {
+            published = false;
+        }
+
+        long millisSincePublish() {
+            return published ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastPublish) : Long.MAX_VALUE;
+        }
+    }
+
+    @Getter
+    public static class ManagedSubscription {
+        private final String id;
+        private final String clientId;
+        private final OpcUaClient client;
+        private volatile SubscriptionParameters parameters;
+        private final List<Shard> shards = new CopyOnWriteArrayList<>();
+        private final Map<String, UaMonitoredItem> monitoredItems = new ConcurrentHashMap<>();
+        private final Map<String, Shard> itemShards = new ConcurrentHashMap<>();
+        private final Map<String, SubscriptionDTO> definitions = new ConcurrentHashMap<>();
+        private final Map<String, StatusCode> failedItems = new ConcurrentHashMap<>();
+        private final AtomicInteger recreatedShards = new AtomicInteger();
+        private final AtomicInteger dataLossEvents = new AtomicInteger();
+        private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+        ManagedSubscription(String clientId, OpcUaClient client, SubscriptionParameters parameters) {
+            this.id = UUID.randomUUID().toString();
+            this.clientId = clientId;
+            this.client = client;
+            this.parameters = parameters;
+        }
+
+        // Las operaciones sobre una misma suscripcion se ejecutan en orden para que
+        // el reparto entre shards siempre parta de un estado estable
+        synchronized <T> CompletableFuture<T> enqueue(Supplier<CompletableFuture<T>> operation) {
+            CompletableFuture<T> result = tail.handle((r, ex) -> null).thenCompose(v -> operation.get());
+            tail = result;
+            return result;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            Properties properties = PropertiesLoader.loadProperties(CLIENT_PROPERTIES);
+            maxItemsPerSubscription = Integer.parseInt(properties.getProperty(
+                    MAX_MONITORED_ITEMS_PROPERTY, String.valueOf(DEFAULT_MAX_MONITORED_ITEMS)).trim());
+        } catch (Exception e) {
+            log.warn("No se pudo leer {} de {}, se usa {}", MAX_MONITORED_ITEMS_PROPERTY, CLIENT_PROPERTIES,
+                    DEFAULT_MAX_MONITORED_ITEMS, e);
+        }
+        observeLifecycle();
+    }
+
+    public CompletableFuture<ManagedSubscription> createSubscription(String clientId, OpcUaClient client,
+                                                                    SubscriptionParameters parameters,
+                                                                    List<SubscriptionDTO> items) {
+        ManagedSubscription managed = new ManagedSubscription(clientId, client, parameters);
+        clientLifecycle.observe(client);
+        return managed.enqueue(() -> createShard(managed)
+                .thenCompose(shard -> {
+                    subscriptions.put(managed.id, managed);
+                    log.info("Suscripcion {} creada para el cliente {}", managed.id, clientId);
+                    return place(managed, items);
+                })
+                .thenApply(v -> managed));
+    }
+
+    public CompletableFuture<ManagedSubscription> addMonitoredItems(String subscriptionId, List<SubscriptionDTO> items)
+            throws SubscriptionException {
+        ManagedSubscription managed = require(subscriptionId);
+        return managed.enqueue(() -> place(managed, items).thenApply(v -> managed));
+    }
+
+    public CompletableFuture<ManagedSubscription> modifySubscription(String subscriptionId,
+                                                                    SubscriptionParameters parameters)
+            throws SubscriptionException {
+        ManagedSubscription managed = require(subscriptionId);
+        return managed.enqueue(() -> {
+            List<CompletableFuture<StatusCode>> calls = managed.shards.stream()
+                    .map(shard -> modifyShard(managed, shard.subscription, parameters))
+                    .toList();
+            return CompletableFuture.allOf(calls.toArray(new CompletableFuture[0]))
+                    .thenApply(v -> {
+                        managed.parameters = parameters;
+                        return managed;
+                    });
+        });
+    }
+
+    public CompletableFuture<ManagedSubscription> modifyMonitoredItems(String subscriptionId,
+                                                                      List<SubscriptionDTO> items)
+            throws SubscriptionException {
+        ManagedSubscription managed = require(subscriptionId);
+        return managed.enqueue(() -> {
+            Map<Shard, List<SubscriptionDTO>> byShard = new LinkedHashMap<>();
+            for (SubscriptionDTO item : items) {
+                Shard shard = managed.itemShards.get(item.nodeId());
+                if (shard == null) {
+                    log.warn("El nodo {} no esta monitorizado en la suscripcion {}", item.nodeId(), subscriptionId);
+                    continue;
+                }
+                byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(item);
+            }
+            List<CompletableFuture<Void>> calls = new ArrayList<>();
+            byShard.forEach((shard, shardItems) -> calls.add(modifyItems(managed, shard, shardItems)));
+            return CompletableFuture.allOf(calls.toArray(new CompletableFuture[0]))
+                    .thenApply(v -> managed);
+        });
+    }
+
+    public CompletableFuture<ManagedSubscription> removeMonitoredItems(String subscriptionId, List<String> nodeIds)
+            throws SubscriptionException {
+        ManagedSubscription managed = require(subscriptionId);
+        return managed.enqueue(() -> {
+            Map<Shard, List<String>> byShard = new LinkedHashMap<>();
+            for (String nodeId : nodeIds) {
+                Shard shard = managed.itemShards.get(nodeId);
+                if (shard != null) {
+                    byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(nodeId);
+                }
+                managed.failedItems.remove(nodeId);
+            }
+            List<CompletableFuture<Void>> calls = new ArrayList<>();
+            byShard.forEach((shard, shardNodes) -> calls.add(deleteItems(managed, shard, shardNodes)));
+            return CompletableFuture.allOf(calls.toArray(new CompletableFuture[0]))
+                    .thenCompose(v -> rebalance(managed))
+                    .thenApply(v -> {
+                        notifyRemoved(managed.clientId, nodeIds);
+                        return managed;
+                    });
+        });
+    }
+
+    public CompletableFuture<ManagedSubscription> deleteSubscription(String subscriptionId)
+            throws SubscriptionException {
+        ManagedSubscription managed = subscriptions.remove(subscriptionId);
+        if (managed == null) {
+            throw new SubscriptionException("Suscripción no encontrada: " + subscriptionId);
+        }
+        return managed.enqueue(() -> {
+            List<String> nodeIds = List.copyOf(managed.monitoredItems.keySet());
+            managed.shards.forEach(shard -> shard.monitoredItems.keySet()
+                    .forEach(nodeId -> unindex(managed, shard, nodeId)));
+            List<CompletableFuture<UaSubscription>> calls = managed.shards.stream()
+                    .map(shard -> managed.client.getSubscriptionManager()
+                            .deleteSubscription(shard.subscription.getSubscriptionId()))
+                    .toList();
+            return CompletableFuture.allOf(calls.toArray(new CompletableFuture[0]))
+                    .whenComplete((v, ex) -> notifyRemoved(managed.clientId, nodeIds))
+                    .thenApply(v -> {
+                        log.info("Suscripcion {} eliminada para el cliente {} ({} shards)",
+                                subscriptionId, managed.clientId, calls.size());
+                        return managed;
+                    });
+        });
+    }
+
+    public Optional<ManagedSubscription> getSubscription(String subscriptionId) {
+        return Optional.ofNullable(subscriptions.get(subscriptionId));
+    }
+
+    public List<ManagedSubscription> getSubscriptions(String clientId) {
+        return subscriptions.values().stream()
+                .filter(managed -> managed.clientId.equals(clientId))
+                .toList();
+    }
+
+    public boolean isMonitored(String clientId, String nodeId) {
+        Set<Shard> shards = monitoredIndex.get(indexKey(clientId, nodeId));
+        return shards != null && !shards.isEmpty();
+    }
+
+    /**
+     * Milisegundos desde la ultima publicacion de alguno de los shards que monitorizan el nodo;
+     * hasta ese momento el servidor no tenia cambios que notificar. Vacio si el nodo no esta
+     * monitorizado.
+     */
+    public OptionalLong millisSinceLastPublish(String clientId, String nodeId) {
+        Set<Shard> shards = monitoredIndex.get(indexKey(clientId, nodeId));
+        if (shards == null || shards.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(shards.stream().mapToLong(Shard::millisSincePublish).min().orElse(Long.MAX_VALUE));
+    }
+
+    public void addListener(DataChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(DataChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private CompletableFuture<Shard> createShard(ManagedSubscription managed) {
+        SubscriptionParameters parameters = managed.parameters;
+        return managed.client.getSubscriptionManager().createSubscription(
+                        parameters.publishingInterval(),
+                        parameters.lifetimeCount(),
+                        parameters.maxKeepAliveCount(),
+                        parameters.maxNotificationsPerPublish(),
+                        parameters.publishingEnabled(),
+                        parameters.priority())
+                .thenApply(subscription -> {
+                    Shard shard = new Shard(subscription);
+                    subscription.addNotificationListener(new UaSubscription.NotificationListener() {
+                        @Override
+                        public void onDataChangeNotification(UaSubscription s, List<UaMonitoredItem> items,
+                                                             List<DataValue> values, DateTime publishTime) {
+                            shard.onPublish();
+                        }
+
+                        @Override
+                        public void onKeepAliveNotification(UaSubscription s, DateTime publishTime) {
+                            shard.onPublish();
+                        }
+                    });
+                    managed.shards.add(shard);
+                    log.debug("Shard {} creado para la suscripcion {}", subscription.getSubscriptionId(), managed.id);
+                    return shard;
+                });
+    }
+
+    /**
+     * Milo transfiere las suscripciones a la nueva sesion tras una reconexion. Solo cuando el
+     * servidor ya no las conserva se recrean los items del shard perdido.
+     * <p>
+     * Milo tambien vigila los numeros de secuencia de las notificaciones y pide Republish de
+     * las que faltan; si el servidor ya no las tiene, solo se releen los nodos del shard afectado.
+     */
+    private void observeLifecycle() {
+        clientLifecycle.addListener(new ClientLifecycleListener() {
+            @Override
+            public void onSubscriptionTransferFailed(OpcUaClient client, UaSubscription subscription,
+                                                     StatusCode statusCode) {
+                recreateShard(client, subscription, statusCode);
+            }
+
+            @Override
+            public void onNotificationDataLost(OpcUaClient client, UaSubscription subscription) {
+                resynchronizeShard(client, subscription);
+            }
+        });
+    }
+
+    private void recreateShard(OpcUaClient client, UaSubscription lost, StatusCode statusCode) {
+        for (ManagedSubscription managed : subscriptions.values()) {
+            if (managed.client != client) {
+                continue;
+            }
+            managed.shards.stream()
+                    .filter(shard -> shard.subscription.getSubscriptionId().equals(lost.getSubscriptionId()))
+                    .findFirst()
+                    .ifPresent(shard -> managed.enqueue(() -> {
+                                if (!managed.shards.remove(shard)) {
+                                    return CompletableFuture.completedFuture(null);
+                                }
+                                List<SubscriptionDTO> items = new ArrayList<>();
+                                shard.monitoredItems.keySet().forEach(nodeId -> {
+                                    unindex(managed, shard, nodeId);
+                                    managed.monitoredItems.remove(nodeId);
+                                    managed.itemShards.remove(nodeId);
+                                    SubscriptionDTO definition = managed.definitions.remove(nodeId);
+                                    if (definition != null) {
+                                        items.add(definition);
+                                    }
+                                });
+                                managed.recreatedShards.incrementAndGet();
+                                log.warn("No se pudo transferir el shard {} de la suscripcion {} ({}): se recrean {} items",
+                                        lost.getSubscriptionId(), managed.id, statusCode, items.size());
+                                return place(managed, items);
+                            })
+                            .exceptionally(ex -> {
+                                log.error("Error recreando los items de la suscripcion {}", managed.id, ex);
+                                return null;
+                            }));
+        }
+    }
+
+    private void resynchronizeShard(OpcUaClient client, UaSubscription subscription) {
+        for (ManagedSubscription managed : subscriptions.values()) {
+            if (managed.client != client) {
+                continue;
+            }
+            managed.shards.stream()
+                    .filter(shard -> shard.subscription.getSubscriptionId().equals(subscription.getSubscriptionId()))
+                    .findFirst()
+                    .ifPresent(shard -> {
+                        // Hasta releerlos, los valores en cache del shard pueden estar desfasados
+                        shard.invalidatePublish();
+                        managed.dataLossEvents.incrementAndGet();
+                        List<String> nodeIds = List.copyOf(shard.monitoredItems.keySet());
+                        log.warn("Hueco de notificaciones no recuperable en el shard {} de la suscripcion {}: se releen {} nodos",
+                                subscription.getSubscriptionId(), managed.id, nodeIds.size());
+                        rereadItems(managed, shard, nodeIds).exceptionally(ex -> {
+                            log.error("Error releyendo los nodos de la suscripcion {}", managed.id, ex);
+                            return null;
+                        });
+                    });
+        }
+    }
+
+    private CompletableFuture<Void> rereadItems(ManagedSubscription managed, Shard shard, List<String> nodeIds) {
+        return operationLimits.chunkSize(managed.client, Operation.READ, maxNodesPerRead).thenCompose(chunkSize -> {
+            List<CompletableFuture<Void>> reads = new ArrayList<>();
+            for (int from = 0; from < nodeIds.size(); from += chunkSize) {
+                List<String> chunk = nodeIds.subList(from, Math.min(from + chunkSize, nodeIds.size()));
+                List<NodeId> readIds = new ArrayList<>(chunk.size());
+                List<String> readNodes = new ArrayList<>(chunk.size());
+                for (String nodeId : chunk) {
+                    UaMonitoredItem item = shard.monitoredItems.get(nodeId);
+                    if (item != null) {
+                        readIds.add(item.getReadValueId().getNodeId());
+                        readNodes.add(nodeId);
+                    }
+                }
+                reads.add(managed.client.readValues(0, TimestampsToReturn.Both, readIds)
+                        .thenAccept(values -> {
+                            for (int i = 0; i < values.size(); i++) {
+                                dispatch(managed, readNodes.get(i), values.get(i));
+                            }
+                        }));
+            }
+            return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0]));
+        });
+    }
+
+    private CompletableFuture<StatusCode> modifyShard(ManagedSubscription managed, UaSubscription subscription,
+                                                      SubscriptionParameters parameters) {
+        return managed.client.getSubscriptionManager().modifySubscription(
+                        subscription.getSubscriptionId(),
+                        parameters.publishingInterval(),
+                        parameters.lifetimeCount(),
+                        parameters.maxKeepAliveCount(),
+                        parameters.maxNotificationsPerPublish(),
+                        parameters.priority())
+                .thenCompose(modified -> subscription.isPublishingEnabled() == parameters.publishingEnabled()
+                        ? CompletableFuture.completedFuture(StatusCode.GOOD)
+                        : subscription.setPublishingMode(parameters.publishingEnabled()));
+    }
+
+    /**
+     * Reparte los items nuevos llenando primero la capacidad libre de los shards existentes
+     * y creando shards adicionales para el resto. Los shards se rellenan uno tras otro.
+     */
+    private CompletableFuture<Void> place(ManagedSubscription managed, List<SubscriptionDTO> items) {
+        if (items == null || items.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<SubscriptionDTO> pending = new ArrayList<>();
+        for (SubscriptionDTO item : items) {
+            if (managed.monitoredItems.containsKey(item.nodeId())) {
+                log.debug("El nodo {} ya esta monitorizado en la suscripcion {}", item.nodeId(), managed.id);
+            } else if (!nodeIdResolver.isValid(item.nodeId())) {
+                managed.failedItems.put(item.nodeId(), new StatusCode(StatusCodes.Bad_NodeIdInvalid));
+            } else if (!validDeadband(item)) {
+                managed.failedItems.put(item.nodeId(), new StatusCode(StatusCodes.Bad_DeadbandFilterInvalid));
+            } else {
+                pending.add(item);
+            }
+        }
+
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        int next = 0;
+        for (Shard shard : managed.shards) {
+            int free = maxItemsPerSubscription - shard.monitoredItems.size();
+            if (free <= 0 || next >= pending.size()) {
+                continue;
+            }
+            List<SubscriptionDTO> slice = pending.subList(next, Math.min(next + free, pending.size()));
+            next += slice.size();
+            chain = chain.thenCompose(v -> createItems(managed, shard, slice));
+        }
+        while (next < pending.size()) {
+            List<SubscriptionDTO> slice = pending.subList(next, Math.min(next + maxItemsPerSubscription, pending.size()));
+            next += slice.size();
+            chain = chain.thenCompose(v -> createShard(managed))
+                    .thenCompose(shard -> createItems(managed, shard, slice));
+        }
+        return chain;
+    }
+
+    /**
+     * Elimina los shards que han quedado vacios y, si los items caben en menos shards,
+     * traslada los del shard menos ocupado a los demas antes de eliminarlo.
+     */
+    private CompletableFuture<Void> rebalance(ManagedSubscription managed) {
+        int total = managed.monitoredItems.size();
+        int needed = Math.max(1, (total + maxItemsPerSubscription - 1) / maxItemsPerSubscription);
+        if (managed.shards.size() <= needed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Shard smallest = managed.shards.stream()
+                .min(Comparator.comparingInt(shard -> shard.monitoredItems.size()))
+                .orElseThrow();
+        List<SubscriptionDTO> moved = new ArrayList<>();
+        smallest.monitoredItems.keySet().forEach(nodeId -> {
+            unindex(managed, smallest, nodeId);
+            managed.monitoredItems.remove(nodeId);
+            managed.itemShards.remove(nodeId);
+            SubscriptionDTO definition = managed.definitions.remove(nodeId);
+            if (definition != null) {
+                moved.add(definition);
+            }
+        });
+        managed.shards.remove(smallest);
+        log.debug("Reequilibrando suscripcion {}: se trasladan {} items del shard {}",
+                managed.id, moved.size(), smallest.subscription.getSubscriptionId());
+        // Los items se crean en su nuevo shard antes de borrar el antiguo para no perder notificaciones
+        return place(managed, moved)
+                .thenCompose(v -> managed.client.getSubscriptionManager()
+                        .deleteSubscription(smallest.subscription.getSubscriptionId()))
+                .thenCompose(v -> rebalance(managed));
+    }
+
+    private CompletableFuture<Void> createItems(ManagedSubscription managed, Shard shard, List<SubscriptionDTO> items) {
+        // Una llamada CreateMonitoredItems por cada modo de marcas de tiempo y lote
+        Map<TimestampsToReturn, List<SubscriptionDTO>> byTimestamps = new LinkedHashMap<>();
+        items.forEach(item -> byTimestamps.computeIfAbsent(timestampsOf(item), t -> new ArrayList<>()).add(item));
+        return operationLimits.chunkSize(managed.client, Operation.SUBSCRIBE, createBatchSize).thenCompose(batchSize -> {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (Map.Entry<TimestampsToReturn, List<SubscriptionDTO>> entry : byTimestamps.entrySet()) {
+                List<SubscriptionDTO> group = entry.getValue();
+                for (int from = 0; from < group.size(); from += batchSize) {
+                    List<SubscriptionDTO> batch = group.subList(from, Math.min(from + batchSize, group.size()));
+                    chain = chain.thenCompose(v -> createBatch(managed, shard, entry.getKey(), batch));
+                }
+            }
+            return chain;
+        });
+    }
+
+    private CompletableFuture<Void> createBatch(ManagedSubscription managed, Shard shard,
+                                                TimestampsToReturn timestamps, List<SubscriptionDTO> items) {
+        List<String> nodeIds = items.stream().map(SubscriptionDTO::nodeId).toList();
+        return nodeIdResolver.resolve(managed.client, nodeIds).thenCompose(resolved -> {
+            List<SubscriptionDTO> batch = new ArrayList<>(items.size());
+            List<NodeId> batchNodeIds = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                if (resolved.get(i).isPresent()) {
+                    batch.add(items.get(i));
+                    batchNodeIds.add(resolved.get(i).get());
+                } else {
+                    // Namespace desconocido en el servidor
+                    managed.failedItems.put(items.get(i).nodeId(), new StatusCode(StatusCodes.Bad_NodeIdUnknown));
+                }
+            }
+            if (batch.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return createAdaptive(managed, shard, timestamps, batch, batchNodeIds);
+        });
+    }
+
+    private CompletableFuture<Void> createAdaptive(ManagedSubscription managed, Shard shard, TimestampsToReturn timestamps,
+                                                   List<SubscriptionDTO> batch, List<NodeId> batchNodeIds) {
+        return createBatch(managed, shard, timestamps, batch, batchNodeIds).exceptionallyCompose(ex -> {
+            if (!OperationLimitsRegistry.isTooManyOperations(ex) || batch.size() <= 1) {
+                return CompletableFuture.failedFuture(ex);
+            }
+            int reduced = operationLimits.backOff(managed.client, Operation.SUBSCRIBE, batch.size());
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int from = 0; from < batch.size(); from += reduced) {
+                int to = Math.min(from + reduced, batch.size());
+                List<SubscriptionDTO> items = batch.subList(from, to);
+                List<NodeId> itemNodeIds = batchNodeIds.subList(from, to);
+                chain = chain.thenCompose(v -> createAdaptive(managed, shard, timestamps, items, itemNodeIds));
+            }
+            return chain;
+        });
+    }
+
+    private CompletableFuture<Void> createBatch(ManagedSubscription managed, Shard shard, TimestampsToReturn timestamps,
+                                                List<SubscriptionDTO> batch, List<NodeId> batchNodeIds) {
+        UaSubscription subscription = shard.subscription;
+        List<MonitoredItemCreateRequest> requests = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            SubscriptionDTO item = batch.get(i);
+            ReadValueId readValueId = new ReadValueId(
+                    batchNodeIds.get(i), AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE);
+            MonitoringMode mode = item.monitoringMode() != null ? item.monitoringMode() : MonitoringMode.Reporting;
+            requests.add(new MonitoredItemCreateRequest(readValueId, mode,
+                    monitoringParameters(managed.client, subscription.nextClientHandle(), item, managed.parameters)));
+        }
+        UaSubscription.ItemCreationCallback onItemCreated = (monitoredItem, index) -> {
+            String nodeId = batch.get(index).nodeId();
+            monitoredItem.setValueConsumer(value -> {
+                livenessTracker.touch(managed.client);
+                dispatch(managed, nodeId, value);
+            });
+        };
+        return subscription.createMonitoredItems(timestamps, requests, onItemCreated)
+                .thenAccept(created -> {
+                    for (int i = 0; i < created.size(); i++) {
+                        SubscriptionDTO item = batch.get(i);
+                        UaMonitoredItem monitoredItem = created.get(i);
+                        if (monitoredItem.getStatusCode().isGood()) {
+                            shard.monitoredItems.put(item.nodeId(), monitoredItem);
+                            index(managed, shard, item.nodeId());
+                            managed.monitoredItems.put(item.nodeId(), monitoredItem);
+                            managed.itemShards.put(item.nodeId(), shard);
+                            managed.definitions.put(item.nodeId(), item);
+                            managed.failedItems.remove(item.nodeId());
+                        } else {
+                            managed.failedItems.put(item.nodeId(), monitoredItem.getStatusCode());
+                            log.warn("No se pudo monitorizar el nodo {}: {}",
+                                    item.nodeId(), monitoredItem.getStatusCode());
+                        }
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> modifyItems(ManagedSubscription managed, Shard shard, List<SubscriptionDTO> items) {
+        List<MonitoredItemModifyRequest> requests = items.stream()
+                .map(item -> {
+                    UaMonitoredItem monitoredItem = shard.monitoredItems.get(item.nodeId());
+                    return new MonitoredItemModifyRequest(
+                            monitoredItem.getMonitoredItemId(),
+                            monitoringParameters(managed.client, monitoredItem.getClientHandle(), item, managed.parameters));
+                })
+                .toList();
+        return shard.subscription.modifyMonitoredItems(timestampsOf(items.getFirst()), requests)
+                .thenAccept(statusCodes -> {
+                    for (int i = 0; i < items.size(); i++) {
+                        SubscriptionDTO item = items.get(i);
+                        if (statusCodes.get(i).isGood()) {
+                            managed.definitions.put(item.nodeId(), item);
+                        } else {
+                            log.warn("No se pudo modificar el nodo {}: {}", item.nodeId(), statusCodes.get(i));
+                        }
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> deleteItems(ManagedSubscription managed, Shard shard, List<String> nodeIds) {
+        List<UaMonitoredItem> toDelete = nodeIds.stream()
+                .map(shard.monitoredItems::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return shard.subscription.deleteMonitoredItems(toDelete)
+                .thenAccept(statusCodes -> nodeIds.forEach(nodeId -> {
+                    shard.monitoredItems.remove(nodeId);
+                    unindex(managed, shard, nodeId);
+                    managed.monitoredItems.remove(nodeId);
+                    managed.itemShards.remove(nodeId);
+                    managed.definitions.remove(nodeId);
+                }));
+    }
+
+    private MonitoringParameters monitoringParameters(OpcUaClient client, UInteger clientHandle, SubscriptionDTO item,
+                                                      SubscriptionParameters parameters) {
+        double samplingInterval = item.samplingInterval() != null
+                ? item.samplingInterval() : parameters.publishingInterval();
+        UInteger queueSize = item.queueSize() != null ? item.queueSize() : uint(1);
+        boolean discardOldest = item.discardOldest() == null || item.discardOldest();
+        return new MonitoringParameters(clientHandle, samplingInterval, dataChangeFilter(client, item),
+                queueSize, discardOldest);
+    }
+
+    /**
+     * Construye el DataChangeFilter del item a partir de su TriggerType y banda muerta.
+     * Sin ninguno de los dos se deja el filtro por defecto del servidor (StatusValue sin banda muerta).
+     */
+    private ExtensionObject dataChangeFilter(OpcUaClient client, SubscriptionDTO item) {
+        DeadbandType deadbandType = item.deadbandType() != null ? item.deadbandType() : DeadbandType.None;
+        if (item.triggerType() == null && deadbandType == DeadbandType.None) {
+            return null;
+        }
+        DataChangeTrigger trigger = item.triggerType() != null
+                ? item.triggerType().toDataChangeTrigger() : DataChangeTrigger.StatusValue;
+        double deadbandValue = deadbandType != DeadbandType.None && item.deadbandValue() != null
+                ? item.deadbandValue() : 0.0;
+        DataChangeFilter filter = new DataChangeFilter(trigger, deadbandType.toUInteger(), deadbandValue);
+        return ExtensionObject.encode(client.getStaticSerializationContext(), filter);
+    }
+
+    private boolean validDeadband(SubscriptionDTO item) {
+        if (item.deadbandType() == null || item.deadbandType() == DeadbandType.None) {
+            return true;
+        }
+        Double value = item.deadbandValue();
+        if (value == null || value < 0 || value.isNaN()) {
+            return false;
+        }
+        return item.deadbandType() != DeadbandType.Percent || value <= 100.0;
+    }
+
+    private TimestampsToReturn timestampsOf(SubscriptionDTO item) {
+        return item.timestampsToReturn() != null ? item.timestampsToReturn() : TimestampsToReturn.Both;
+    }
+
+    private void dispatch(ManagedSubscription managed, String nodeId, DataValue value) {
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.onDataChange(managed.id, managed.clientId, nodeId, value);
+            } catch (Exception e) {
+                log.warn("Error en el consumidor de cambios de datos para el nodo {}", nodeId, e);
+            }
+        }
+    }
+
+    private void notifyRemoved(String clientId, List<String> nodeIds) {
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.onMonitoredItemsRemoved(clientId, nodeIds);
+            } catch (Exception e) {
+                log.warn("Error notificando la eliminacion de {} monitored items", nodeIds.size(), e);
+            }
+        }
+    }
+
+    private void index(ManagedSubscription managed, Shard shard, String nodeId) {
+        monitoredIndex.compute(indexKey(managed.clientId, nodeId), (key, shards) -> {
+            Set<Shard> indexed = shards != null ? shards : ConcurrentHashMap.newKeySet();
+            indexed.add(shard);
+            return indexed;
+        });
+    }
+
+    private void unindex(ManagedSubscription managed, Shard shard, String nodeId) {
+        monitoredIndex.computeIfPresent(indexKey(managed.clientId, nodeId), (key, shards) -> {
+            shards.remove(shard);
+            return shards.isEmpty() ? null : shards;
+        });
+    }
+
+    private String indexKey(String clientId, String nodeId) {
+        return clientId + "|" + nodeId;
+    }
+
+    private ManagedSubscription require(String subscriptionId) throws SubscriptionException {
+        ManagedSubscription managed = subscriptions.get(subscriptionId);
+        if (managed == null) {
+            throw new SubscriptionException("Suscripción no encontrada: " + subscriptionId);
+        }
+        return managed;
+    }
+}
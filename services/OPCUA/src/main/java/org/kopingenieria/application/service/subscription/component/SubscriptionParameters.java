@@ -0,0 +1,47 @@
+package org.kopingenieria.application.service.subscription.component;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UByte;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.kopingenieria.domain.dto.SubscriptionDTO;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ubyte;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+public record SubscriptionParameters(String name,
+                                     double publishingInterval,
+                                     UInteger lifetimeCount,
+                                     UInteger maxKeepAliveCount,
+                                     UInteger maxNotificationsPerPublish,
+                                     boolean publishingEnabled,
+                                     UByte priority) {
+
+    public static final double DEFAULT_PUBLISHING_INTERVAL = 1000.0;
+    public static final long DEFAULT_LIFETIME_COUNT = 2400L;
+    public static final long DEFAULT_MAX_KEEP_ALIVE_COUNT = 10L;
+    public static final long DEFAULT_MAX_NOTIFICATIONS_PER_PUBLISH = 65535L;
+
+    public static SubscriptionParameters of(String name, Double publishingInterval, Long lifetimeCount,
+                                            Long maxKeepAliveCount, Long maxNotificationsPerPublish,
+                                            Boolean publishingEnabled, Integer priority) {
+        return new SubscriptionParameters(
+                name,
+                publishingInterval != null ? publishingInterval : DEFAULT_PUBLISHING_INTERVAL,
+                uint(lifetimeCount != null ? lifetimeCount : DEFAULT_LIFETIME_COUNT),
+                uint(maxKeepAliveCount != null ? maxKeepAliveCount : DEFAULT_MAX_KEEP_ALIVE_COUNT),
+                uint(maxNotificationsPerPublish != null ? maxNotificationsPerPublish : DEFAULT_MAX_NOTIFICATIONS_PER_PUBLISH),
+                publishingEnabled == null || publishingEnabled,
+                ubyte(priority != null ? priority : 0));
+    }
+
+    public static SubscriptionParameters from(String name, SubscriptionDTO item) {
+        return new SubscriptionParameters(
+                name,
+                item.publishingInterval() != null ? item.publishingInterval() : DEFAULT_PUBLISHING_INTERVAL,
+                item.lifetimeCount() != null ? item.lifetimeCount() : uint(DEFAULT_LIFETIME_COUNT),
+                item.maxKeepAliveCount() != null ? item.maxKeepAliveCount() : uint(DEFAULT_MAX_KEEP_ALIVE_COUNT),
+                item.maxNotificationsPerPublish() != null
+                        ? item.maxNotificationsPerPublish() : uint(DEFAULT_MAX_NOTIFICATIONS_PER_PUBLISH),
+                item.publishingEnabled() == null || item.publishingEnabled(),
+                item.priority() != null ? item.priority() : ubyte(0));
+    }
+}
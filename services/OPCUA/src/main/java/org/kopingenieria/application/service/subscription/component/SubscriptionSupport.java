@@ -0,0 +1,36 @@
+package org.kopingenieria.application.service.subscription.component;
+
+import org.kopingenieria.api.response.subscription.SubscriptionResponse;
+import org.kopingenieria.domain.enums.communication.MessageStatusCode;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class SubscriptionSupport {
+
+    private SubscriptionSupport() {}
+
+    public static SubscriptionResponse toResponse(SubscriptionManagerComp.ManagedSubscription managed, String message) {
+        Map<String, MessageStatusCode> failedItems = new LinkedHashMap<>();
+        managed.getFailedItems().forEach((nodeId, status) ->
+                failedItems.put(nodeId, MessageStatusCode.fromStatusCode(status.getValue())));
+        return SubscriptionResponse.builder()
+                .subscriptionId(managed.getId())
+                .clientId(managed.getClientId())
+                .name(managed.getParameters().name())
+                .serverSubscriptionIds(managed.getShards().stream()
+                        .map(shard -> shard.getSubscription().getSubscriptionId().longValue())
+                        .toList())
+                .shardCount(managed.getShards().size())
+                .revisedPublishingInterval(managed.getShards().isEmpty() ? null
+                        : managed.getShards().getFirst().getSubscription().getRevisedPublishingInterval())
+                .monitoredItemCount(managed.getMonitoredItems().size())
+                .recreatedShardCount(managed.getRecreatedShards().get())
+                .dataLossCount(managed.getDataLossEvents().get())
+                .failedItems(failedItems.isEmpty() ? null : failedItems)
+                .success(failedItems.isEmpty())
+                .message(message)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
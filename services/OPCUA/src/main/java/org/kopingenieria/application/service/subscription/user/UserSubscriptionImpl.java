@@ -0,0 +1,176 @@
+package org.kopingenieria.application.service.subscription.user;
+
+import lombok.RequiredArgsConstructor;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.kopingenieria.api.response.subscription.SubscriptionResponse;
+import org.kopingenieria.application.service.pool.clients.user.OpcUaUserPool;
+import org.kopingenieria.application.service.subscription.component.DataChangeListener;
+import org.kopingenieria.application.service.subscription.component.DataChangeStream;
+import org.kopingenieria.application.service.subscription.component.SubscriptionManagerComp;
+import org.kopingenieria.application.service.subscription.component.SubscriptionParameters;
+import org.kopingenieria.application.service.subscription.component.SubscriptionSupport;
+import org.kopingenieria.config.opcua.subscription.SubscriptionProperties;
+import org.kopingenieria.domain.dto.SubscriptionDTO;
+import org.kopingenieria.domain.model.user.UserSubscriptionConfiguration;
+import org.kopingenieria.domain.serialization.user.UserSubscriptionSerializable;
+import org.kopingenieria.exception.exceptions.SubscriptionException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class UserSubscriptionImpl implements UserSubscription {
+
+    private final OpcUaUserPool userPool;
+    private final SubscriptionManagerComp subscriptionManager;
+    private final DataChangeStream dataChangeStream;
+    private final SubscriptionProperties subscriptionProperties;
+    // Cliente reservado por cada clientId mientras tenga suscripciones activas
+    private final Map<String, OpcUaUserPool.PooledOpcUaClient> subscribedClients = new ConcurrentHashMap<>();
+
+    @Override
+    public CompletableFuture<SubscriptionResponse> crearSuscripcion(String clientId,
+                                                                    UserSubscriptionConfiguration configuracion,
+                                                                    List<SubscriptionDTO> items) throws Exception {
+        return crearSuscripcion(clientId, toParameters(configuracion, items), items);
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionResponse> crearSuscripcion(String clientId,
+                                                                    UserSubscriptionSerializable suscripcion,
+                                                                    List<SubscriptionDTO> items) throws Exception {
+        if (suscripcion == null || !suscripcion.isValid()) {
+            throw new SubscriptionException("La suscripción serializada no es válida");
+        }
+        return crearSuscripcion(clientId, suscripcion.getSubscription(), items);
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionResponse> crearSuscripcion(String clientId, String nombre,
+                                                                    List<SubscriptionDTO> items) throws Exception {
+        SubscriptionProperties.Subscription configured = subscriptionProperties.findByName(nombre)
+                .orElseThrow(() -> new SubscriptionException("Suscripción no configurada: " + nombre));
+        return crearSuscripcion(clientId, SubscriptionParameters.of(
+                configured.getName(),
+                configured.getPublishingInterval(),
+                configured.getLifetimeCount(),
+                configured.getMaxKeepAliveCount(),
+                configured.getMaxNotificationsPerPublish(),
+                configured.getPublishingEnabled(),
+                configured.getPriority()), items);
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionResponse> modificarSuscripcion(String subscriptionId,
+                                                                        UserSubscriptionConfiguration configuracion)
+            throws Exception {
+        if (configuracion == null) {
+            throw new SubscriptionException("La configuración de la suscripción es obligatoria");
+        }
+        return subscriptionManager.modifySubscription(subscriptionId, toParameters(configuracion, List.of()))
+                .thenApply(managed -> SubscriptionSupport.toResponse(managed, "Suscripción modificada correctamente"));
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionResponse> agregarItems(String subscriptionId, List<SubscriptionDTO> items)
+            throws Exception {
+        return subscriptionManager.addMonitoredItems(subscriptionId, items)
+                .thenApply(managed -> SubscriptionSupport.toResponse(managed, "Items agregados a la suscripción"));
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionResponse> modificarItems(String subscriptionId, List<SubscriptionDTO> items)
+            throws Exception {
+        return subscriptionManager.modifyMonitoredItems(subscriptionId, items)
+                .thenApply(managed -> SubscriptionSupport.toResponse(managed, "Items de la suscripción modificados"));
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionResponse> eliminarItems(String subscriptionId, List<String> nodeIds)
+            throws Exception {
+        return subscriptionManager.removeMonitoredItems(subscriptionId, nodeIds)
+                .thenApply(managed -> SubscriptionSupport.toResponse(managed, "Items eliminados de la suscripción"));
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionResponse> eliminarSuscripcion(String subscriptionId) throws Exception {
+        return subscriptionManager.deleteSubscription(subscriptionId)
+                .thenApply(managed -> {
+                    liberarClienteSinSuscripciones(managed.getClientId());
+                    return SubscriptionSupport.toResponse(managed, "Suscripción eliminada correctamente");
+                });
+    }
+
+    @Override
+    public Flux<DataValue> flujo(String subscriptionId, SubscriptionDTO item) throws Exception {
+        return dataChangeStream.stream(subscriptionId, item);
+    }
+
+    @Override
+    public void agregarListener(DataChangeListener listener) {
+        subscriptionManager.addListener(listener);
+    }
+
+    @Override
+    public void eliminarListener(DataChangeListener listener) {
+        subscriptionManager.removeListener(listener);
+    }
+
+    private CompletableFuture<SubscriptionResponse> crearSuscripcion(String clientId, SubscriptionParameters parameters,
+                                                                     List<SubscriptionDTO> items)
+            throws SubscriptionException {
+        OpcUaClient client = reservarCliente(clientId);
+        return subscriptionManager.createSubscription(clientId, client, parameters, items)
+                .whenComplete((managed, ex) -> {
+                    if (ex != null) {
+                        liberarClienteSinSuscripciones(clientId);
+                    }
+                })
+                .thenApply(managed -> SubscriptionSupport.toResponse(managed, "Suscripción creada correctamente"));
+    }
+
+    private OpcUaClient reservarCliente(String clientId) throws SubscriptionException {
+        OpcUaUserPool.PooledOpcUaClient pooledClient = subscribedClients.get(clientId);
+        if (pooledClient == null) {
+            pooledClient = userPool.obtenerCliente(clientId)
+                    .orElseThrow(() -> new SubscriptionException("No se pudo obtener un cliente del pool"));
+            OpcUaUserPool.PooledOpcUaClient previous = subscribedClients.putIfAbsent(clientId, pooledClient);
+            if (previous != null) {
+                userPool.liberarCliente(pooledClient);
+                pooledClient = previous;
+            }
+        }
+        return pooledClient.getClient();
+    }
+
+    private void liberarClienteSinSuscripciones(String clientId) {
+        if (subscriptionManager.getSubscriptions(clientId).isEmpty()) {
+            OpcUaUserPool.PooledOpcUaClient pooledClient = subscribedClients.remove(clientId);
+            if (pooledClient != null) {
+                userPool.liberarCliente(pooledClient);
+            }
+        }
+    }
+
+    private SubscriptionParameters toParameters(UserSubscriptionConfiguration configuracion,
+                                                List<SubscriptionDTO> items) {
+        if (configuracion == null) {
+            return items == null || items.isEmpty()
+                    ? SubscriptionParameters.of(null, null, null, null, null, null, null)
+                    : SubscriptionParameters.from(null, items.getFirst());
+        }
+        return SubscriptionParameters.of(
+                configuracion.getName(),
+                configuracion.getPublishingInterval(),
+                configuracion.getLifetimeCount(),
+                configuracion.getMaxKeepAliveCount(),
+                configuracion.getMaxNotificationsPerPublish(),
+                configuracion.getPublishingEnabled(),
+                configuracion.getPriority());
+    }
+}
@@ -0,0 +1,20 @@
+package org.kopingenieria.config.opcua.connection;
+
+import org.kopingenieria.application.service.connection.component.CircuitBreakerRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CircuitBreakerConfiguration {
+
+    @Bean(name = "circuitBreakerRegistry")
+    public CircuitBreakerRegistry circuitBreakerRegistry(
+            @Value("${opcua.connection.circuitBreaker.failureThreshold:5}") int failureThreshold,
+            @Value("${opcua.connection.circuitBreaker.openDuration:5000}") long openDuration,
+            @Value("${opcua.connection.circuitBreaker.maxOpenDuration:60000}") long maxOpenDuration) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.shared();
+        registry.configure(failureThreshold, openDuration, maxOpenDuration);
+        return registry;
+    }
+}
@@ -0,0 +1,37 @@
+package org.kopingenieria.config.opcua.subscription;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Configuration
+@ConfigurationProperties(prefix = "opcua")
+@Getter
+@Setter
+public class SubscriptionProperties {
+
+    // Bloque opcua.subscriptions de application.yml
+    private List<Subscription> subscriptions = new ArrayList<>();
+
+    @Data
+    public static class Subscription {
+        private String name;
+        private Double publishingInterval;
+        private Long lifetimeCount;
+        private Long maxKeepAliveCount;
+        private Long maxNotificationsPerPublish;
+        private Integer priority;
+        private Boolean publishingEnabled;
+    }
+
+    public Optional<Subscription> findByName(String name) {
+        return subscriptions.stream()
+                .filter(subscription -> subscription.getName() != null && subscription.getName().equals(name))
+                .findFirst();
+    }
+}
@@ -0,0 +1,16 @@
+package org.kopingenieria.config.opcua.timer;
+
+import org.kopingenieria.util.helper.WheelTimer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TimerConfiguration {
+
+    // Los pools se crean tambien fuera de Spring, por eso el bean es la instancia compartida;
+    // el contexto no es su dueño y no la detiene al cerrarse
+    @Bean(name = "wheelTimer", destroyMethod = "")
+    public WheelTimer wheelTimer() {
+        return WheelTimer.shared();
+    }
+}
@@ -4,6 +4,8 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UByte;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.kopingenieria.domain.enums.trigger.DeadbandType;
+import org.kopingenieria.domain.enums.trigger.TriggerType;
 
 public record SubscriptionDTO(String nodeId,
                               Double publishingInterval,
@@ -16,5 +18,8 @@ public record SubscriptionDTO(String nodeId,
                               UInteger queueSize,
                               Boolean discardOldest,
                               MonitoringMode monitoringMode,
-                              TimestampsToReturn timestampsToReturn) {
+                              TimestampsToReturn timestampsToReturn,
+                              TriggerType triggerType,
+                              DeadbandType deadbandType,
+                              Double deadbandValue) {
 }
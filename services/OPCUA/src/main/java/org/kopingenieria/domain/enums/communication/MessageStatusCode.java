@@ -3,6 +3,7 @@ package org.kopingenieria.domain.enums.communication;
 public enum MessageStatusCode {
 
     GOOD(0x00000000, "The operation was successful"),
+    UNCERTAIN(0x40000000, "The value is uncertain"),
     UNSPECIFIED_ERROR(0x80010000, "An unspecified error occurred"),
     BAD_INTERNAL_ERROR(0x80020000, "An internal error occurred"),
     BAD_OUT_OF_MEMORY(0x80030000, "Not enough memory to complete the operation"),
@@ -45,4 +46,18 @@ public enum MessageStatusCode {
         }
         throw new IllegalArgumentException("Invalid status code: 0x" + Integer.toHexString(code));
     }
+
+    public static MessageStatusCode fromStatusCode(long value) {
+        int code = (int) (value & 0xFFFF0000L);
+        for (MessageStatusCode statusCode : MessageStatusCode.values()) {
+            if (statusCode.code == code) {
+                return statusCode;
+            }
+        }
+        // Los codigos no catalogados se reducen a su severidad: solo Bad (bit 31) es un error
+        if ((value & 0x80000000L) != 0) {
+            return UNSPECIFIED_ERROR;
+        }
+        return (value & 0x40000000L) != 0 ? UNCERTAIN : GOOD;
+    }
 }
@@ -0,0 +1,9 @@
+package org.kopingenieria.domain.enums.connection;
+
+import java.io.Serializable;
+
+public enum CircuitState implements Serializable {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+}
@@ -12,5 +12,6 @@ public enum ConnectionStatus implements Serializable {
     DISCONNECTING,
     UNKNOWN,
     NO_RESPONSE,
-    RECONNECTION_FAILED
+    RECONNECTION_FAILED,
+    CIRCUIT_OPEN
 }
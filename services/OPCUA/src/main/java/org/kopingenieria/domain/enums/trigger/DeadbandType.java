@@ -0,0 +1,21 @@
+package org.kopingenieria.domain.enums.trigger;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+public enum DeadbandType {
+    None(0),
+    Absolute(1),
+    Percent(2);
+
+    private final int value;
+
+    DeadbandType(int value) {
+        this.value = value;
+    }
+
+    public UInteger toUInteger() {
+        return uint(value);
+    }
+}
@@ -1,7 +1,19 @@
 package org.kopingenieria.domain.enums.trigger;
 
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DataChangeTrigger;
+
 public enum TriggerType {
-    Status,
-    StatusValue,
-    StatusValueTimestamp
+    Status(DataChangeTrigger.Status),
+    StatusValue(DataChangeTrigger.StatusValue),
+    StatusValueTimestamp(DataChangeTrigger.StatusValueTimestamp);
+
+    private final DataChangeTrigger trigger;
+
+    TriggerType(DataChangeTrigger trigger) {
+        this.trigger = trigger;
+    }
+
+    public DataChangeTrigger toDataChangeTrigger() {
+        return trigger;
+    }
 }
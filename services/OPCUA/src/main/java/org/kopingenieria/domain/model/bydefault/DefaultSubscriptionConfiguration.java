@@ -0,0 +1,22 @@
+package org.kopingenieria.domain.model.bydefault;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+@Getter
+@Builder
+public class DefaultSubscriptionConfiguration implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 5L;
+
+    private final String name;
+    private final Double publishingInterval;
+    private final Long lifetimeCount;
+    private final Long maxKeepAliveCount;
+    private final Long maxNotificationsPerPublish;
+    private final Boolean publishingEnabled;
+    private final Integer priority;
+}
@@ -0,0 +1,22 @@
+package org.kopingenieria.domain.model.user;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+@Data
+@Builder
+public class UserSubscriptionConfiguration implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 5L;
+
+    private String name;
+    private Double publishingInterval;
+    private Long lifetimeCount;
+    private Long maxKeepAliveCount;
+    private Long maxNotificationsPerPublish;
+    private Boolean publishingEnabled;
+    private Integer priority;
+}
@@ -0,0 +1,100 @@
+package org.kopingenieria.util.helper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.SessionActivityListener;
+import org.eclipse.milo.opcua.sdk.client.api.UaSession;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscriptionManager;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Punto unico de enganche a los eventos de cada cliente OPC UA.
+ * <p>
+ * Cada cliente se observa una sola vez, con un listener de sesion y otro de suscripciones
+ * que reparten los eventos entre los {@link ClientLifecycleListener} registrados. Cuando el
+ * pool retira el cliente, {@link #forget(OpcUaClient)} quita esos listeners y avisa para que
+ * se suelte el estado asociado.
+ */
+@Slf4j
+@Component("clientLifecycle")
+public class ClientLifecycle {
+
+    private final List<ClientLifecycleListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<OpcUaClient, Registration> observed = new ConcurrentHashMap<>();
+
+    private record Registration(SessionActivityListener session,
+                                UaSubscriptionManager.SubscriptionListener subscriptions) {
+    }
+
+    public void addListener(ClientLifecycleListener listener) {
+        listeners.add(listener);
+    }
+
+    public void observe(OpcUaClient client) {
+        if (client == null || observed.containsKey(client)) {
+            return;
+        }
+        Registration registration = new Registration(
+                new SessionActivityListener() {
+                    @Override
+                    public void onSessionActive(UaSession session) {
+                        dispatch(listener -> listener.onSessionActive(client));
+                    }
+
+                    @Override
+                    public void onSessionInactive(UaSession session) {
+                        dispatch(listener -> listener.onSessionInactive(client));
+                    }
+                },
+                new UaSubscriptionManager.SubscriptionListener() {
+                    @Override
+                    public void onKeepAlive(UaSubscription subscription, DateTime publishTime) {
+                        dispatch(listener -> listener.onKeepAlive(client));
+                    }
+
+                    @Override
+                    public void onSubscriptionTransferFailed(UaSubscription subscription, StatusCode statusCode) {
+                        dispatch(listener -> listener.onSubscriptionTransferFailed(client, subscription, statusCode));
+                    }
+
+                    @Override
+                    public void onNotificationDataLost(UaSubscription subscription) {
+                        dispatch(listener -> listener.onNotificationDataLost(client, subscription));
+                    }
+                });
+        if (observed.putIfAbsent(client, registration) != null) {
+            return;
+        }
+        client.addSessionActivityListener(registration.session());
+        client.getSubscriptionManager().addSubscriptionListener(registration.subscriptions());
+    }
+
+    public void forget(OpcUaClient client) {
+        Registration registration = client != null ? observed.remove(client) : null;
+        if (registration == null) {
+            return;
+        }
+        client.removeSessionActivityListener(registration.session());
+        client.getSubscriptionManager().removeSubscriptionListener(registration.subscriptions());
+        dispatch(listener -> listener.onClientClosed(client));
+    }
+
+    private void dispatch(Consumer<ClientLifecycleListener> event) {
+        for (ClientLifecycleListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (Exception e) {
+                // Un listener con fallos no debe impedir que el resto reciba el evento
+                log.warn("Error notificando un evento de cliente OPC UA", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.kopingenieria.util.helper;
+
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+
+/**
+ * Eventos de sesion y suscripcion de un cliente OPC UA, difundidos por {@link ClientLifecycle}.
+ */
+public interface ClientLifecycleListener {
+
+    default void onSessionActive(OpcUaClient client) {
+    }
+
+    default void onSessionInactive(OpcUaClient client) {
+    }
+
+    default void onKeepAlive(OpcUaClient client) {
+    }
+
+    default void onSubscriptionTransferFailed(OpcUaClient client, UaSubscription subscription, StatusCode statusCode) {
+    }
+
+    default void onNotificationDataLost(OpcUaClient client, UaSubscription subscription) {
+    }
+
+    /**
+     * El pool ha retirado el cliente; se deben soltar los datos guardados para el.
+     */
+    default void onClientClosed(OpcUaClient client) {
+    }
+}
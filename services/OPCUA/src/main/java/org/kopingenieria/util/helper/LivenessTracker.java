@@ -0,0 +1,74 @@
+package org.kopingenieria.util.helper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ultima vez que se supo algo de cada cliente OPC UA: keepalives de sus suscripciones,
+ * notificaciones, respuestas correctas a lecturas y escrituras y activacion de sesion.
+ * <p>
+ * Un cliente del que se ha recibido trafico en los ultimos {@code silenceThreshold} ms se
+ * considera vivo sin necesidad de hacerle un ping. La entrada de un cliente se borra al
+ * cerrarse su sesion o al retirarlo el pool.
+ */
+@Component("livenessTracker")
+@RequiredArgsConstructor
+public class LivenessTracker {
+
+    private final Map<OpcUaClient, AtomicLong> lastHeard = new ConcurrentHashMap<>();
+    private final ClientLifecycle clientLifecycle;
+
+    @Value("${opcua.connection.liveness.silenceThreshold:15000}")
+    private long silenceThreshold;
+
+    @PostConstruct
+    public void init() {
+        clientLifecycle.addListener(new ClientLifecycleListener() {
+            @Override
+            public void onSessionActive(OpcUaClient client) {
+                touch(client);
+            }
+
+            @Override
+            public void onSessionInactive(OpcUaClient client) {
+                // Sin sesion el cliente vuelve a necesitar ping para comprobarse
+                lastHeard.remove(client);
+            }
+
+            @Override
+            public void onKeepAlive(OpcUaClient client) {
+                touch(client);
+            }
+
+            @Override
+            public void onClientClosed(OpcUaClient client) {
+                lastHeard.remove(client);
+            }
+        });
+    }
+
+    public void touch(OpcUaClient client) {
+        AtomicLong last = lastHeard.get(client);
+        if (last == null) {
+            clientLifecycle.observe(client);
+            last = lastHeard.computeIfAbsent(client, c -> new AtomicLong());
+        }
+        last.set(System.nanoTime());
+    }
+
+    public boolean isAlive(OpcUaClient client) {
+        AtomicLong last = lastHeard.get(client);
+        if (last == null) {
+            clientLifecycle.observe(client);
+            return false;
+        }
+        return System.nanoTime() - last.get() < TimeUnit.MILLISECONDS.toNanos(silenceThreshold);
+    }
+}
@@ -0,0 +1,153 @@
+package org.kopingenieria.util.helper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache compartida de NodeIds ya parseados y de la tabla de namespaces de cada servidor.
+ * <p>
+ * Admite la forma {@code ns=<indice>;...} y la forma {@code nsu=<uri>;...}; esta ultima se
+ * resuelve con el NamespaceArray del servidor, que se lee una sola vez por endpoint y se
+ * descarta cuando la sesion se reactiva tras una reconexion.
+ */
+@Slf4j
+@Component("nodeIdResolver")
+@RequiredArgsConstructor
+public class NodeIdResolver {
+
+    private static final String NAMESPACE_URI_PREFIX = "nsu=";
+
+    private final Map<String, Optional<NodeId>> parsed = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<List<String>>> namespaces = new ConcurrentHashMap<>();
+    private final ClientLifecycle clientLifecycle;
+
+    @Value("${opcua.nodeid.cacheSize:100000}")
+    private int cacheSize;
+
+    @PostConstruct
+    public void init() {
+        clientLifecycle.addListener(new ClientLifecycleListener() {
+            @Override
+            public void onSessionActive(OpcUaClient client) {
+                // Tras reconectar el servidor puede haber cambiado el orden de sus namespaces
+                invalidate(client);
+            }
+        });
+    }
+
+    public Optional<NodeId> parse(String nodeId) {
+        if (nodeId == null) {
+            return Optional.empty();
+        }
+        Optional<NodeId> cached = parsed.get(nodeId);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<NodeId> result = nodeId.startsWith(NAMESPACE_URI_PREFIX) ? Optional.empty() : NodeId.parseSafe(nodeId);
+        if (parsed.size() >= cacheSize) {
+            trim();
+        }
+        parsed.put(nodeId, result);
+        return result;
+    }
+
+    /**
+     * Comprueba la sintaxis sin consultar al servidor; los ids por URI de namespace se dan por
+     * validos si el resto del id es correcto.
+     */
+    public boolean isValid(String nodeId) {
+        if (nodeId != null && nodeId.startsWith(NAMESPACE_URI_PREFIX)) {
+            int separator = nodeId.indexOf(';');
+            return separator > NAMESPACE_URI_PREFIX.length()
+                    && parse("ns=0" + nodeId.substring(separator)).isPresent();
+        }
+        return parse(nodeId).isPresent();
+    }
+
+    /**
+     * Resuelve una lista de ids en el orden recibido. Solo consulta al servidor si hay ids
+     * {@code nsu=} y su tabla de namespaces aun no esta en cache.
+     */
+    public CompletableFuture<List<Optional<NodeId>>> resolve(OpcUaClient client, List<String> nodeIds) {
+        boolean byUri = nodeIds.stream().anyMatch(id -> id != null && id.startsWith(NAMESPACE_URI_PREFIX));
+        if (!byUri) {
+            List<Optional<NodeId>> result = new ArrayList<>(nodeIds.size());
+            nodeIds.forEach(id -> result.add(parse(id)));
+            return CompletableFuture.completedFuture(result);
+        }
+        return namespaceArray(client).thenApply(table -> {
+            List<Optional<NodeId>> result = new ArrayList<>(nodeIds.size());
+            nodeIds.forEach(id -> result.add(resolve(table, id)));
+            return result;
+        });
+    }
+
+    public CompletableFuture<Optional<NodeId>> resolve(OpcUaClient client, String nodeId) {
+        return resolve(client, List.of(nodeId)).thenApply(List::getFirst);
+    }
+
+    public void invalidate(OpcUaClient client) {
+        String endpoint = endpointOf(client);
+        if (namespaces.remove(endpoint) != null) {
+            log.debug("Tabla de namespaces de {} invalidada", endpoint);
+        }
+    }
+
+    private Optional<NodeId> resolve(List<String> table, String nodeId) {
+        if (nodeId == null || !nodeId.startsWith(NAMESPACE_URI_PREFIX)) {
+            return parse(nodeId);
+        }
+        int separator = nodeId.indexOf(';');
+        if (separator < 0) {
+            return Optional.empty();
+        }
+        int index = table.indexOf(nodeId.substring(NAMESPACE_URI_PREFIX.length(), separator));
+        if (index < 0) {
+            return Optional.empty();
+        }
+        return parse("ns=" + index + nodeId.substring(separator));
+    }
+
+    private CompletableFuture<List<String>> namespaceArray(OpcUaClient client) {
+        clientLifecycle.observe(client);
+        String endpoint = endpointOf(client);
+        CompletableFuture<List<String>> table = namespaces.computeIfAbsent(endpoint, e ->
+                client.readValue(0, TimestampsToReturn.Neither, Identifiers.Server_NamespaceArray)
+                        .thenApply(value -> {
+                            Object array = value.getValue() != null ? value.getValue().getValue() : null;
+                            List<String> uris = array instanceof String[] values ? List.of(values) : List.of();
+                            log.debug("Tabla de namespaces de {} leida: {} entradas", endpoint, uris.size());
+                            return uris;
+                        }));
+        // Un fallo no se cachea para que la siguiente peticion vuelva a intentarlo
+        table.whenComplete((uris, ex) -> {
+            if (ex != null) {
+                namespaces.remove(endpoint, table);
+            }
+        });
+        return table;
+    }
+
+    private void trim() {
+        // Descarta una parte de las entradas; los ids calientes se vuelven a parsear y cachear enseguida
+        int toRemove = Math.max(1, cacheSize / 10);
+        parsed.keySet().stream().limit(toRemove).toList().forEach(parsed::remove);
+    }
+
+    private String endpointOf(OpcUaClient client) {
+        return client.getConfig().getEndpoint().getEndpointUrl();
+    }
+}
@@ -0,0 +1,133 @@
+package org.kopingenieria.util.helper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.kopingenieria.domain.enums.communication.Operation;
+import org.springframework.stereotype.Component;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limites de operacion (OperationLimits) de cada servidor, leidos una vez por sesion y
+ * cacheados por endpoint. Ademas guarda, por endpoint y operacion, el tamaño de bloque
+ * reducido tras una respuesta Bad_TooManyOperations hasta que la sesion se renueva.
+ */
+@Slf4j
+@Component("operationLimitsRegistry")
+@RequiredArgsConstructor
+public class OperationLimitsRegistry {
+
+    private static final Map<Operation, NodeId> LIMIT_NODES = new EnumMap<>(Map.of(
+            Operation.READ, Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerRead,
+            Operation.WRITE, Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerWrite,
+            Operation.SUBSCRIBE, Identifiers.Server_ServerCapabilities_OperationLimits_MaxMonitoredItemsPerCall,
+            Operation.BROWSE, Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerBrowse));
+
+    private final Map<String, CompletableFuture<Map<Operation, Integer>>> limits = new ConcurrentHashMap<>();
+    private final Map<String, Integer> backedOff = new ConcurrentHashMap<>();
+    private final ClientLifecycle clientLifecycle;
+
+    @PostConstruct
+    public void init() {
+        clientLifecycle.addListener(new ClientLifecycleListener() {
+            @Override
+            public void onSessionActive(OpcUaClient client) {
+                invalidate(client);
+            }
+        });
+    }
+
+    /**
+     * Tamaño de bloque para {@code operation}: el menor entre el configurado, el limite del
+     * servidor (0 significa sin limite) y el reducido tras un Bad_TooManyOperations.
+     */
+    public CompletableFuture<Integer> chunkSize(OpcUaClient client, Operation operation, int configured) {
+        String endpoint = endpointOf(client);
+        return limits(client).thenApply(serverLimits -> {
+            int size = Math.max(1, configured);
+            int serverLimit = serverLimits.getOrDefault(operation, 0);
+            if (serverLimit > 0) {
+                size = Math.min(size, serverLimit);
+            }
+            Integer reduced = backedOff.get(key(endpoint, operation));
+            return reduced != null ? Math.min(size, reduced) : size;
+        });
+    }
+
+    /**
+     * Registra que el servidor rechazo un bloque de {@code attempted} operaciones y devuelve
+     * el nuevo tamaño a usar, la mitad del intentado.
+     */
+    public int backOff(OpcUaClient client, Operation operation, int attempted) {
+        int reduced = Math.max(1, attempted / 2);
+        backedOff.merge(key(endpointOf(client), operation), reduced, Math::min);
+        log.warn("{} rechazo un bloque de {} operaciones {}, se reduce a {}",
+                endpointOf(client), attempted, operation, reduced);
+        return reduced;
+    }
+
+    public static boolean isTooManyOperations(Throwable ex) {
+        Throwable cause = ex;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof UaException uaException
+                && uaException.getStatusCode().getValue() == StatusCodes.Bad_TooManyOperations;
+    }
+
+    public void invalidate(OpcUaClient client) {
+        String endpoint = endpointOf(client);
+        limits.remove(endpoint);
+        backedOff.keySet().removeIf(key -> key.startsWith(endpoint + "|"));
+    }
+
+    private CompletableFuture<Map<Operation, Integer>> limits(OpcUaClient client) {
+        clientLifecycle.observe(client);
+        String endpoint = endpointOf(client);
+        CompletableFuture<Map<Operation, Integer>> serverLimits = limits.computeIfAbsent(endpoint, e -> {
+            List<Operation> operations = List.copyOf(LIMIT_NODES.keySet());
+            List<NodeId> nodeIds = operations.stream().map(LIMIT_NODES::get).toList();
+            return client.readValues(0, TimestampsToReturn.Neither, nodeIds)
+                    .thenApply(values -> {
+                        Map<Operation, Integer> result = new EnumMap<>(Operation.class);
+                        for (int i = 0; i < operations.size(); i++) {
+                            result.put(operations.get(i), limitOf(values.get(i)));
+                        }
+                        log.debug("Limites de operacion de {}: {}", endpoint, result);
+                        return result;
+                    });
+        });
+        return serverLimits.exceptionally(ex -> {
+            // Sin limites conocidos se usan los configurados; se reintentara en la siguiente peticion
+            limits.remove(endpoint, serverLimits);
+            log.debug("No se pudieron leer los limites de operacion de {}", endpoint, ex);
+            return Map.of();
+        });
+    }
+
+    private int limitOf(DataValue value) {
+        Object limit = value != null && value.getValue() != null ? value.getValue().getValue() : null;
+        return limit instanceof UInteger uinteger ? (int) Math.min(Integer.MAX_VALUE, uinteger.longValue()) : 0;
+    }
+
+    private String key(String endpoint, Operation operation) {
+        return endpoint + "|" + operation;
+    }
+
+    private String endpointOf(OpcUaClient client) {
+        return client.getConfig().getEndpoint().getEndpointUrl();
+    }
+}
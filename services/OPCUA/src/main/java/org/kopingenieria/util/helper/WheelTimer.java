@@ -0,0 +1,118 @@
+package org.kopingenieria.util.helper;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Temporizador unico del modulo para timeouts, retardos de reintento y tareas periodicas.
+ * <p>
+ * Usa una rueda de tiempo (HashedWheelTimer de Netty): programar y cancelar cuesta O(1) y
+ * todas las esperas comparten un solo hilo, a cambio de una resolucion de {@code TICK_MILLIS}.
+ * Las tareas vencidas se ejecutan fuera del hilo de la rueda para no retrasar al resto, y
+ * cada timeout se cancela en cuanto su futuro termina para que no queden tareas colgadas.
+ */
+public final class WheelTimer {
+
+    private static final long TICK_MILLIS = 10;
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private static final class Holder {
+        private static final WheelTimer SHARED = new WheelTimer();
+    }
+
+    private final HashedWheelTimer wheel;
+    private final Executor executor = ForkJoinPool.commonPool();
+
+    private WheelTimer() {
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "opcua-wheel-timer");
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.wheel = new HashedWheelTimer(threadFactory, TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+    }
+
+    public static WheelTimer shared() {
+        return Holder.SHARED;
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return wheel.newTimeout(timeout -> executor.execute(task), delay, unit);
+    }
+
+    /**
+     * Equivalente a {@link CompletableFuture#orTimeout} sobre la rueda compartida.
+     */
+    public <T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        if (future.isDone()) {
+            return future;
+        }
+        Timeout expiry = schedule(() -> future.completeExceptionally(new TimeoutException()), timeout, unit);
+        future.whenComplete((result, ex) -> expiry.cancel());
+        return future;
+    }
+
+    /**
+     * Equivalente a {@link CompletableFuture#delayedExecutor(long, TimeUnit)}.
+     */
+    public Executor delayedExecutor(long delay, TimeUnit unit) {
+        return command -> schedule(command, delay, unit);
+    }
+
+    /**
+     * Ejecuta {@code task} periodicamente, esperando {@code delay} entre el fin de una ejecucion y
+     * el inicio de la siguiente. Cancelar el futuro devuelto detiene la tarea.
+     */
+    public CompletableFuture<Void> scheduleWithFixedDelay(Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        CompletableFuture<Void> periodic = new CompletableFuture<>();
+        // Solo se guarda el timeout pendiente: un unico hook lo cancela al terminar el futuro
+        AtomicReference<Timeout> pending = new AtomicReference<>();
+        periodic.whenComplete((result, ex) -> {
+            Timeout next = pending.get();
+            if (next != null) {
+                next.cancel();
+            }
+        });
+        scheduleNext(periodic, pending, task, initialDelay, delay, unit);
+        return periodic;
+    }
+
+    /**
+     * Detiene la rueda. Una HashedWheelTimer detenida no puede reiniciarse, asi que la instancia
+     * compartida vive lo que la JVM y esta llamada no tiene efecto sobre ella.
+     */
+    public void stop() {
+        if (this == Holder.SHARED) {
+            return;
+        }
+        wheel.stop();
+    }
+
+    private void scheduleNext(CompletableFuture<Void> periodic, AtomicReference<Timeout> pending, Runnable task,
+                              long nextDelay, long delay, TimeUnit unit) {
+        if (periodic.isDone()) {
+            return;
+        }
+        pending.set(schedule(() -> {
+            if (periodic.isDone()) {
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                scheduleNext(periodic, pending, task, delay, delay, unit);
+            }
+        }, nextDelay, unit));
+        // Cancelado entre la comprobacion y el alta: el hook ya se ejecuto con el timeout anterior
+        if (periodic.isDone()) {
+            pending.get().cancel();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.kopingenieria.application.service.communication.component;
+
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfig;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.EndpointDescription;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kopingenieria.api.response.communication.NodeValueResponse;
+import org.kopingenieria.domain.enums.communication.Operation;
+import org.kopingenieria.util.helper.LivenessTracker;
+import org.kopingenieria.util.helper.NodeIdResolver;
+import org.kopingenieria.util.helper.OperationLimitsRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchReadEngineTest {
+
+    private static final String NODE = "ns=2;s=Temperatura";
+    private static final TimestampsToReturn TIMESTAMPS = TimestampsToReturn.Both;
+
+    private OpcUaClient client;
+    private OperationLimitsRegistry operationLimits;
+    private BatchReadEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        NodeIdResolver nodeIdResolver = mock(NodeIdResolver.class);
+        when(nodeIdResolver.resolve(any(OpcUaClient.class), anyList())).thenAnswer(invocation -> {
+            List<String> nodeIds = invocation.getArgument(1);
+            return CompletableFuture.completedFuture(nodeIds.stream().map(id -> Optional.of(NodeId.parse(id))).toList());
+        });
+        operationLimits = mock(OperationLimitsRegistry.class);
+        when(operationLimits.chunkSize(any(), eq(Operation.READ), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(1000));
+
+        EndpointDescription endpoint = mock(EndpointDescription.class);
+        when(endpoint.getEndpointUrl()).thenReturn("opc.tcp://localhost:4840");
+        OpcUaClientConfig config = mock(OpcUaClientConfig.class);
+        when(config.getEndpoint()).thenReturn(endpoint);
+        client = mock(OpcUaClient.class);
+        when(client.getConfig()).thenReturn(config);
+
+        engine = new BatchReadEngine(nodeIdResolver, operationLimits, mock(LivenessTracker.class));
+        ReflectionTestUtils.setField(engine, "maxNodesPerRead", 1000);
+        ReflectionTestUtils.setField(engine, "singleFlight", true);
+    }
+
+    @Test
+    void concurrentReadsOfSameNodeShareOneRequest() throws Exception {
+        CompletableFuture<ReadResponse> response = new CompletableFuture<>();
+        when(client.read(anyDouble(), any(TimestampsToReturn.class), anyList())).thenReturn(response);
+
+        CompletableFuture<List<NodeValueResponse>> first = engine.read(client, List.of(NODE), 100, TIMESTAMPS);
+        CompletableFuture<List<NodeValueResponse>> second = engine.read(client, List.of(NODE), 100, TIMESTAMPS);
+        response.complete(responseWith(21.5));
+
+        assertEquals(21.5, first.get(1, TimeUnit.SECONDS).get(0).getValue());
+        assertEquals(21.5, second.get(1, TimeUnit.SECONDS).get(0).getValue());
+        verify(client, times(1)).read(anyDouble(), any(TimestampsToReturn.class), anyList());
+    }
+
+    @Test
+    void stricterMaxAgeTakesOverTheInFlightRead() throws Exception {
+        CompletableFuture<ReadResponse> lenient = new CompletableFuture<>();
+        CompletableFuture<ReadResponse> strict = new CompletableFuture<>();
+        when(client.read(eq(1000.0), any(TimestampsToReturn.class), anyList())).thenReturn(lenient);
+        when(client.read(eq(0.0), any(TimestampsToReturn.class), anyList())).thenReturn(strict);
+
+        CompletableFuture<List<NodeValueResponse>> first = engine.read(client, List.of(NODE), 1000, TIMESTAMPS);
+        CompletableFuture<List<NodeValueResponse>> second = engine.read(client, List.of(NODE), 0, TIMESTAMPS);
+        CompletableFuture<List<NodeValueResponse>> third = engine.read(client, List.of(NODE), 500, TIMESTAMPS);
+        strict.complete(responseWith(2.0));
+        lenient.complete(responseWith(1.0));
+
+        assertEquals(1.0, first.get(1, TimeUnit.SECONDS).get(0).getValue());
+        assertEquals(2.0, second.get(1, TimeUnit.SECONDS).get(0).getValue());
+        assertEquals(2.0, third.get(1, TimeUnit.SECONDS).get(0).getValue());
+        verify(client, times(2)).read(anyDouble(), any(TimestampsToReturn.class), anyList());
+    }
+
+    @Test
+    void failedChunkSizeReleasesInFlightEntries() throws Exception {
+        when(operationLimits.chunkSize(any(), eq(Operation.READ), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("sin limites")))
+                .thenReturn(CompletableFuture.completedFuture(1000));
+        when(client.read(anyDouble(), any(TimestampsToReturn.class), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(responseWith(3.0)));
+
+        CompletableFuture<List<NodeValueResponse>> failed = engine.read(client, List.of(NODE), 100, TIMESTAMPS);
+        assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+
+        List<NodeValueResponse> next = engine.read(client, List.of(NODE), 100, TIMESTAMPS).get(1, TimeUnit.SECONDS);
+
+        assertEquals(3.0, next.get(0).getValue());
+        verify(client, times(1)).read(anyDouble(), any(TimestampsToReturn.class), anyList());
+    }
+
+    @Test
+    void synchronousReadFailureReleasesInFlightEntries() throws Exception {
+        when(client.read(anyDouble(), any(TimestampsToReturn.class), anyList()))
+                .thenThrow(new IllegalStateException("canal cerrado"))
+                .thenReturn(CompletableFuture.completedFuture(responseWith(4.0)));
+
+        List<NodeValueResponse> failed = engine.read(client, List.of(NODE), 100, TIMESTAMPS).get(1, TimeUnit.SECONDS);
+        List<NodeValueResponse> next = engine.read(client, List.of(NODE), 100, TIMESTAMPS).get(1, TimeUnit.SECONDS);
+
+        assertFalse(failed.get(0).isGood());
+        assertEquals(4.0, next.get(0).getValue());
+        verify(client, times(2)).read(anyDouble(), any(TimestampsToReturn.class), anyList());
+    }
+
+    private static ReadResponse responseWith(double value) {
+        return new ReadResponse(null, new DataValue[]{new DataValue(new Variant(value))}, null);
+    }
+}
@@ -0,0 +1,116 @@
+package org.kopingenieria.application.service.communication.component;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kopingenieria.api.response.communication.NodeValueResponse;
+import org.kopingenieria.application.service.subscription.component.SubscriptionManagerComp;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CurrentValueCacheTest {
+
+    private static final String CLIENT = "client-1";
+    private static final String CACHED_NODE = "ns=2;s=Temperatura";
+    private static final String OTHER_NODE = "ns=2;s=Presion";
+
+    private SubscriptionManagerComp subscriptionManager;
+    private CurrentValueCache cache;
+    private final List<List<String>> serverReads = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        subscriptionManager = mock(SubscriptionManagerComp.class);
+        cache = new CurrentValueCache(subscriptionManager);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "defaultMaxAge", 1000L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        cache.onDataChange(CLIENT, CACHED_NODE, new DataValue(new Variant(21.5)));
+    }
+
+    @Test
+    void missingMaxAgeAppliesTheConfiguredDefault() {
+        assertEquals(1000.0, cache.effectiveMaxAge(OptionalDouble.empty()));
+        assertEquals(0.0, cache.effectiveMaxAge(OptionalDouble.of(0)));
+        assertEquals(250.0, cache.effectiveMaxAge(OptionalDouble.of(250)));
+    }
+
+    @Test
+    void recentValueIsServedFromCacheAndTheRestFromTheServer() throws Exception {
+        when(subscriptionManager.millisSinceLastPublish(CLIENT, CACHED_NODE)).thenReturn(OptionalLong.of(0));
+
+        List<NodeValueResponse> results = read(List.of(CACHED_NODE, OTHER_NODE), 1000);
+
+        assertEquals(List.of(List.of(OTHER_NODE)), serverReads);
+        assertEquals(21.5, results.get(0).getValue());
+        assertTrue(results.get(0).getCached());
+        assertTrue(results.get(0).getAgeMillis() <= 1000);
+        assertEquals(OTHER_NODE, results.get(1).getNodeId());
+        assertNull(results.get(1).getCached());
+    }
+
+    @Test
+    void ageCountsFromTheLatestPublishOfTheSubscription() throws Exception {
+        when(subscriptionManager.millisSinceLastPublish(CLIENT, CACHED_NODE)).thenReturn(OptionalLong.of(0));
+        Thread.sleep(30);
+
+        List<NodeValueResponse> results = read(List.of(CACHED_NODE), 10);
+
+        assertTrue(serverReads.isEmpty());
+        assertEquals(0L, results.get(0).getAgeMillis());
+    }
+
+    @Test
+    void zeroMaxAgeForcesAServerRead() throws Exception {
+        when(subscriptionManager.millisSinceLastPublish(CLIENT, CACHED_NODE)).thenReturn(OptionalLong.of(0));
+
+        List<NodeValueResponse> results = read(List.of(CACHED_NODE), 0);
+
+        assertEquals(List.of(List.of(CACHED_NODE)), serverReads);
+        assertNull(results.get(0).getCached());
+    }
+
+    @Test
+    void staleValueIsReadFromTheServer() throws Exception {
+        when(subscriptionManager.millisSinceLastPublish(CLIENT, CACHED_NODE)).thenReturn(OptionalLong.of(5000));
+        Thread.sleep(30);
+
+        read(List.of(CACHED_NODE), 10);
+
+        assertEquals(List.of(List.of(CACHED_NODE)), serverReads);
+    }
+
+    @Test
+    void valueOfAnUnmonitoredNodeIsDiscarded() throws Exception {
+        when(subscriptionManager.millisSinceLastPublish(CLIENT, CACHED_NODE)).thenReturn(OptionalLong.empty());
+
+        read(List.of(CACHED_NODE), 1000);
+        when(subscriptionManager.millisSinceLastPublish(CLIENT, CACHED_NODE)).thenReturn(OptionalLong.of(0));
+        read(List.of(CACHED_NODE), 1000);
+
+        assertEquals(List.of(List.of(CACHED_NODE), List.of(CACHED_NODE)), serverReads);
+    }
+
+    private List<NodeValueResponse> read(List<String> nodeIds, double maxAge) throws Exception {
+        Function<List<String>, CompletableFuture<List<NodeValueResponse>>> reader = missing -> {
+            serverReads.add(missing);
+            return CompletableFuture.completedFuture(missing.stream()
+                    .map(nodeId -> NodeValueResponse.builder().nodeId(nodeId).good(true).build())
+                    .toList());
+        };
+        return cache.read(CLIENT, nodeIds, maxAge, reader).get(1, TimeUnit.SECONDS);
+    }
+}
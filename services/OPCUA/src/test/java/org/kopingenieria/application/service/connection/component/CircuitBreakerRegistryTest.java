@@ -0,0 +1,110 @@
+package org.kopingenieria.application.service.connection.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kopingenieria.application.monitoring.health.CircuitHealth;
+import org.kopingenieria.domain.enums.connection.CircuitState;
+import org.kopingenieria.domain.enums.connection.ConnectionStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerRegistryTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_DURATION = 100;
+    private static final String ENDPOINT = "opc.tcp://breaker:4840";
+
+    private final CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+    private CircuitBreakerRegistry.CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        registry.configure(FAILURE_THRESHOLD, OPEN_DURATION, 1000);
+        breaker = registry.forEndpoint(ENDPOINT);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        failTimes(FAILURE_THRESHOLD - 1);
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitState.OPEN, breaker.getState());
+        assertFalse(breaker.allowsRequests());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        failTimes(FAILURE_THRESHOLD - 1);
+        breaker.onSuccess();
+        failTimes(FAILURE_THRESHOLD - 1);
+
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void admitsOneProbeWhenTheWaitExpiresAndClosesOnSuccess() throws Exception {
+        failTimes(FAILURE_THRESHOLD);
+        Thread.sleep(OPEN_DURATION + 50);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeReopensWithDoubledWait() throws Exception {
+        failTimes(FAILURE_THRESHOLD);
+        Thread.sleep(OPEN_DURATION + 50);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitState.OPEN, breaker.getState());
+        Thread.sleep(OPEN_DURATION + 50);
+        assertFalse(breaker.allowsRequests());
+        Thread.sleep(OPEN_DURATION);
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void configureReachesExistingBreakers() throws Exception {
+        registry.configure(FAILURE_THRESHOLD, 10000, 60000);
+
+        failTimes(FAILURE_THRESHOLD);
+        Thread.sleep(OPEN_DURATION + 50);
+
+        assertFalse(breaker.allowsRequests());
+    }
+
+    @Test
+    void healthReportsTheOpenCircuit() {
+        failTimes(FAILURE_THRESHOLD);
+
+        CircuitHealth health = registry.healthOf(ENDPOINT);
+
+        assertEquals(ConnectionStatus.CIRCUIT_OPEN, health.getStatus());
+        assertEquals(CircuitState.OPEN, health.getCircuitState());
+        assertEquals(1, health.getOpenCount());
+        assertEquals(FAILURE_THRESHOLD, health.getFailureCount());
+        assertEquals(FAILURE_THRESHOLD, health.getConsecutiveFailures());
+        assertNotNull(health.getLastFailed());
+        assertNotNull(health.getLastOpened());
+    }
+
+    private void failTimes(int failures) {
+        for (int i = 0; i < failures; i++) {
+            breaker.onFailure();
+        }
+    }
+}
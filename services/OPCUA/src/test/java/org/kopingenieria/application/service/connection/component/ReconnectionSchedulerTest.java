@@ -0,0 +1,126 @@
+package org.kopingenieria.application.service.connection.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kopingenieria.util.helper.WheelTimer;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.LongUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReconnectionSchedulerTest {
+
+    private static final long MAX_DELAY = 60000;
+    private static final LongUnaryOperator IMMEDIATE = previous -> 0;
+
+    private ReconnectionScheduler scheduler;
+    private final List<CompletableFuture<Boolean>> pending = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ReconnectionScheduler(WheelTimer.shared());
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 2);
+        ReflectionTestUtils.setField(scheduler, "maxPerEndpoint", 1);
+        ReflectionTestUtils.setField(scheduler, "maxDelay", MAX_DELAY);
+    }
+
+    @Test
+    void decorrelatedJitterStaysBetweenBaseAndTripleThePreviousDelay() {
+        LongUnaryOperator backoff = scheduler.decorrelatedJitter(100);
+        for (int i = 0; i < 1000; i++) {
+            long delay = backoff.applyAsLong(1000);
+            assertTrue(delay >= 100 && delay <= 3000, "retardo fuera de rango: " + delay);
+        }
+        assertEquals(100, backoff.applyAsLong(0));
+    }
+
+    @Test
+    void decorrelatedJitterIsCappedAtMaxDelay() {
+        LongUnaryOperator backoff = scheduler.decorrelatedJitter(100);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(backoff.applyAsLong(MAX_DELAY) <= MAX_DELAY);
+        }
+    }
+
+    @Test
+    void jitteredIntervalStaysWithinHalfTheInterval() {
+        LongUnaryOperator backoff = scheduler.jitteredInterval(1000);
+        for (int i = 0; i < 1000; i++) {
+            long delay = backoff.applyAsLong(0);
+            assertTrue(delay >= 500 && delay <= 1500, "retardo fuera de rango: " + delay);
+        }
+    }
+
+    @Test
+    void runningReconnectionsAreCappedInTotal() throws Exception {
+        AtomicInteger started = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            scheduleHanging("opc.tcp://plc-" + i + ":4840", started);
+        }
+
+        awaitCount(started::get, 2);
+        Thread.sleep(200);
+        assertEquals(2, started.get());
+
+        pending.getFirst().complete(true);
+        awaitCount(started::get, 3);
+    }
+
+    @Test
+    void runningReconnectionsAreCappedPerEndpoint() throws Exception {
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<Boolean> first = scheduleHanging("opc.tcp://plc:4840", started);
+        scheduleHanging("opc.tcp://plc:4840", started);
+
+        awaitCount(started::get, 1);
+        Thread.sleep(200);
+        assertEquals(1, started.get());
+        assertFalse(first.isDone());
+
+        pending.getFirst().complete(true);
+        assertTrue(first.get(2, TimeUnit.SECONDS));
+        awaitCount(started::get, 2);
+    }
+
+    @Test
+    void failedAttemptsAreRetriedUpToMaxAttempts() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Boolean> result = scheduler.schedule("opc.tcp://retry:4840", 3, 0, IMMEDIATE,
+                () -> false,
+                () -> {
+                    calls.incrementAndGet();
+                    return CompletableFuture.completedFuture(false);
+                },
+                Boolean::booleanValue);
+
+        assertFalse(result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, calls.get());
+    }
+
+    private CompletableFuture<Boolean> scheduleHanging(String endpoint, AtomicInteger started) {
+        return scheduler.schedule(endpoint, 1, 0, IMMEDIATE, () -> false,
+                () -> {
+                    started.incrementAndGet();
+                    CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+                    pending.add(outcome);
+                    return outcome;
+                },
+                Boolean::booleanValue);
+    }
+
+    private static void awaitCount(IntSupplier count, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.getAsInt() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, count.getAsInt());
+    }
+}
@@ -0,0 +1,122 @@
+package org.kopingenieria.application.service.pool.connections.bydefault;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kopingenieria.application.service.connection.bydefault.DefaultConnectionFactory;
+import org.kopingenieria.application.service.connection.bydefault.DefaultConnectionImpl;
+import org.kopingenieria.application.service.connection.component.ReconnectionScheduler;
+import org.kopingenieria.application.service.pool.clients.bydefault.OpcUaDefaultPool;
+import org.kopingenieria.domain.enums.connection.UrlType;
+import org.kopingenieria.util.helper.LivenessTracker;
+import org.kopingenieria.util.helper.NodeIdResolver;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Valida con la logica real de {@link DefaultConnectionImpl#ping(boolean)}: el cliente Milo
+ * tiene trafico reciente, asi que solo una conexion sospechosa llega a leer del servidor.
+ */
+class DefaultConnectionPoolSuspectTest {
+
+    private static final UrlType URL = UrlType.OPCUA_LOCAL;
+    private static final String CLIENT = "client-1";
+
+    private OpcUaClient client;
+    private DefaultConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = mock(OpcUaClient.class);
+        OpcUaDefaultPool.PooledOpcUaClient pooledClient = mock(OpcUaDefaultPool.PooledOpcUaClient.class);
+        when(pooledClient.isConnected()).thenReturn(true);
+        when(pooledClient.getClient()).thenReturn(client);
+
+        LivenessTracker livenessTracker = mock(LivenessTracker.class);
+        when(livenessTracker.isAlive(client)).thenReturn(true);
+        NodeIdResolver nodeIdResolver = mock(NodeIdResolver.class);
+        when(nodeIdResolver.parse(anyString())).thenAnswer(invocation -> Optional.of(NodeId.parse(invocation.getArgument(0))));
+
+        DefaultConnectionImpl connection = new DefaultConnectionImpl(CLIENT, mock(OpcUaDefaultPool.class),
+                nodeIdResolver, mock(ReconnectionScheduler.class), livenessTracker);
+        ReflectionTestUtils.setField(connection, "pooledClient", pooledClient);
+        DefaultConnectionFactory factory = mock(DefaultConnectionFactory.class);
+        when(factory.create(anyString())).thenReturn(connection);
+
+        DefaultConnectionPool.PoolConfig config = DefaultConnectionPool.PoolConfig.builder()
+                .maxPoolSize(1)
+                .minPoolSize(0)
+                .connectionTimeout(Duration.ofSeconds(5))
+                .healthCheckInterval(Duration.ofHours(1))
+                .maxRetryAttempts(3)
+                .enableBackoffRetry(false)
+                .autoscaleEnabled(false)
+                .validationIdleThreshold(Duration.ofMinutes(1))
+                .meterRegistry(new SimpleMeterRegistry())
+                .build();
+        pool = new DefaultConnectionPool(config, List.of(CLIENT), factory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void routineValidationTrustsRecentTraffic() throws Exception {
+        acquire();
+
+        verify(client, never()).readValue(anyDouble(), any(TimestampsToReturn.class), any(NodeId.class));
+    }
+
+    @Test
+    void suspectConnectionIsCheckedAgainstTheServerDespiteRecentTraffic() throws Exception {
+        when(client.readValue(anyDouble(), any(TimestampsToReturn.class), any(NodeId.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("sin respuesta")));
+        DefaultConnectionPool.PooledConnection connection = acquire();
+
+        pool.markSuspect(connection);
+        connection.validateConnection().get(1, TimeUnit.SECONDS);
+
+        verify(client, times(1)).readValue(anyDouble(), any(TimestampsToReturn.class), any(NodeId.class));
+        assertTrue(connection.isSuspect());
+    }
+
+    @Test
+    void suspectConnectionIsClearedOnlyByAServerRead() throws Exception {
+        when(client.readValue(anyDouble(), any(TimestampsToReturn.class), any(NodeId.class)))
+                .thenReturn(CompletableFuture.completedFuture(new DataValue(new Variant(0))));
+        DefaultConnectionPool.PooledConnection connection = acquire();
+
+        pool.markSuspect(connection);
+        connection.validateConnection().get(1, TimeUnit.SECONDS);
+
+        verify(client, times(1)).readValue(anyDouble(), any(TimestampsToReturn.class), any(NodeId.class));
+        assertFalse(connection.isSuspect());
+    }
+
+    private DefaultConnectionPool.PooledConnection acquire() throws Exception {
+        return pool.acquireConnection(URL, CLIENT).get(1, TimeUnit.SECONDS);
+    }
+}
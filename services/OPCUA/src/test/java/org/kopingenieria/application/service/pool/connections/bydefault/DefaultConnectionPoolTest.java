@@ -0,0 +1,124 @@
+package org.kopingenieria.application.service.pool.connections.bydefault;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kopingenieria.api.response.connection.ConnectionResponse;
+import org.kopingenieria.application.service.connection.bydefault.DefaultConnectionFactory;
+import org.kopingenieria.application.service.connection.bydefault.DefaultConnectionImpl;
+import org.kopingenieria.domain.enums.connection.ConnectionStatus;
+import org.kopingenieria.domain.enums.connection.UrlType;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DefaultConnectionPoolTest {
+
+    private static final UrlType URL = UrlType.OPCUA_LOCAL;
+    private static final String CLIENT = "client-1";
+
+    private DefaultConnectionImpl connection;
+    private DefaultConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = mock(DefaultConnectionImpl.class);
+        when(connection.hasSession()).thenReturn(true);
+        when(connection.getCurrentStatus()).thenReturn(ConnectionStatus.CONNECTED);
+        when(connection.ping(anyBoolean())).thenAnswer(invocation -> connected());
+
+        DefaultConnectionFactory factory = mock(DefaultConnectionFactory.class);
+        when(factory.create(anyString())).thenReturn(connection);
+
+        DefaultConnectionPool.PoolConfig config = DefaultConnectionPool.PoolConfig.builder()
+                .maxPoolSize(1)
+                .minPoolSize(0)
+                .connectionTimeout(Duration.ofSeconds(5))
+                .healthCheckInterval(Duration.ofHours(1))
+                .maxRetryAttempts(3)
+                .enableBackoffRetry(false)
+                .autoscaleEnabled(false)
+                .validationIdleThreshold(Duration.ofMinutes(1))
+                .meterRegistry(new SimpleMeterRegistry())
+                .build();
+        pool = new DefaultConnectionPool(config, List.of(CLIENT), factory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void recentlyUsedConnectionIsHandedOutWithoutValidation() throws Exception {
+        DefaultConnectionPool.PooledConnection first = acquire();
+        pool.releaseConnection(first, CLIENT);
+
+        DefaultConnectionPool.PooledConnection second = acquire();
+
+        assertSame(first, second);
+        verify(connection, times(1)).ping(anyBoolean());
+    }
+
+    @Test
+    void suspectConnectionIsValidatedOnAcquire() throws Exception {
+        DefaultConnectionPool.PooledConnection first = acquire();
+        CompletableFuture<DefaultConnectionPool.PooledConnection> waiting = pool.acquireConnection(URL, CLIENT);
+        assertFalse(waiting.isDone());
+
+        // Se entrega directamente al waiter: la validacion en segundo plano no llega a reservarla
+        pool.releaseConnection(first, CLIENT, true);
+        DefaultConnectionPool.PooledConnection second = waiting.get(1, TimeUnit.SECONDS);
+
+        assertSame(first, second);
+        verify(connection, times(2)).ping(anyBoolean());
+        verify(connection).ping(true);
+        assertFalse(second.isSuspect());
+    }
+
+    @Test
+    void failedOperationMarksConnectionSuspectAndValidatesItInBackground() throws Exception {
+        CompletableFuture<Object> failed = pool.withConnection(URL, CLIENT,
+                conn -> CompletableFuture.failedFuture(new IllegalStateException("fallo de lectura")));
+        assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+        verify(connection, times(2)).ping(anyBoolean());
+
+        DefaultConnectionPool.PooledConnection next = acquire();
+
+        assertFalse(next.isSuspect());
+        verify(connection, times(2)).ping(anyBoolean());
+    }
+
+    @Test
+    void failedValidationKeepsConnectionSuspect() throws Exception {
+        DefaultConnectionPool.PooledConnection first = acquire();
+        when(connection.ping(anyBoolean())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                ConnectionResponse.builder().status(ConnectionStatus.NO_RESPONSE).build()));
+
+        first.validateConnection().get(1, TimeUnit.SECONDS);
+
+        assertTrue(first.isSuspect());
+    }
+
+    private DefaultConnectionPool.PooledConnection acquire() throws Exception {
+        return pool.acquireConnection(URL, CLIENT).get(1, TimeUnit.SECONDS);
+    }
+
+    private static CompletableFuture<ConnectionResponse> connected() {
+        return CompletableFuture.completedFuture(ConnectionResponse.builder().status(ConnectionStatus.CONNECTED).build());
+    }
+}
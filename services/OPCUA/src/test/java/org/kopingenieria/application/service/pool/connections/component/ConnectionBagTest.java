@@ -0,0 +1,145 @@
+package org.kopingenieria.application.service.pool.connections.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kopingenieria.util.helper.WheelTimer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionBagTest {
+
+    private static final long TIMEOUT = 5000;
+
+    private final WheelTimer timer = WheelTimer.shared();
+    private ConnectionBag<Entry> bag;
+
+    static final class Entry extends PoolEntry {
+    }
+
+    @BeforeEach
+    void setUp() {
+        bag = new ConnectionBag<>(1);
+    }
+
+    @Test
+    void borrowTakesIdleEntryOnlyOnce() {
+        Entry entry = new Entry();
+        assertTrue(bag.add(entry));
+
+        assertSame(entry, bag.borrow());
+        assertEquals(PoolEntry.State.IN_USE, entry.getState());
+        assertNull(bag.borrow());
+
+        bag.requite(entry);
+        assertEquals(PoolEntry.State.IDLE, entry.getState());
+    }
+
+    @Test
+    void concurrentBorrowersWinTheEntryOnce() throws Exception {
+        Entry entry = new Entry();
+        bag.add(entry);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (bag.borrow() != null) {
+                        winners.incrementAndGet();
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, winners.get());
+    }
+
+    @Test
+    void returnedEntryIsHandedOffToWaitersInOrder() throws Exception {
+        Entry entry = borrowNew();
+        CompletableFuture<Entry> first = bag.borrow(Entry::new, TIMEOUT, timer, TimeoutException::new);
+        CompletableFuture<Entry> second = bag.borrow(Entry::new, TIMEOUT, timer, TimeoutException::new);
+        assertEquals(2, bag.getWaitingCount());
+
+        bag.requite(entry);
+        assertSame(entry, first.get(1, TimeUnit.SECONDS));
+        assertFalse(second.isDone());
+        assertEquals(PoolEntry.State.IN_USE, entry.getState());
+
+        bag.requite(entry);
+        assertSame(entry, second.get(1, TimeUnit.SECONDS));
+        assertEquals(0, bag.getWaitingCount());
+    }
+
+    @Test
+    void waiterTimesOutAndLaterReturnStaysIdle() throws Exception {
+        Entry entry = borrowNew();
+        CompletableFuture<Entry> waiter = bag.borrow(Entry::new, 50, timer, TimeoutException::new);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> waiter.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        assertEquals(0, bag.getWaitingCount());
+
+        bag.requite(entry);
+        assertEquals(PoolEntry.State.IDLE, entry.getState());
+        assertSame(entry, bag.borrow());
+    }
+
+    @Test
+    void reservedEntryGoesToWaiterWhenUnreserved() throws Exception {
+        Entry entry = new Entry();
+        bag.add(entry);
+        assertTrue(bag.reserve(entry));
+        assertNull(bag.borrow());
+
+        CompletableFuture<Entry> waiter = bag.borrow(Entry::new, TIMEOUT, timer, TimeoutException::new);
+        assertFalse(waiter.isDone());
+
+        bag.unreserve(entry);
+        assertSame(entry, waiter.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void removedEntryIsNotReturnedAndFreesItsSlot() throws Exception {
+        Entry entry = borrowNew();
+
+        assertTrue(bag.remove(entry));
+        assertFalse(bag.remove(entry));
+        bag.requite(entry);
+
+        assertEquals(PoolEntry.State.EVICTED, entry.getState());
+        assertEquals(0, bag.size());
+        Entry replacement = borrowNew();
+        assertNotSame(entry, replacement);
+    }
+
+    private Entry borrowNew() throws Exception {
+        return bag.borrow(Entry::new, TIMEOUT, timer, TimeoutException::new).get(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,165 @@
+package org.kopingenieria.application.service.subscription.component;
+
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.sdk.client.subscriptions.OpcUaSubscriptionManager;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kopingenieria.domain.dto.SubscriptionDTO;
+import org.kopingenieria.domain.enums.communication.Operation;
+import org.kopingenieria.util.helper.ClientLifecycle;
+import org.kopingenieria.util.helper.LivenessTracker;
+import org.kopingenieria.util.helper.NodeIdResolver;
+import org.kopingenieria.util.helper.OperationLimitsRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubscriptionManagerCompTest {
+
+    private static final String CLIENT = "client-1";
+    private static final int MAX_ITEMS_PER_SHARD = 2;
+
+    private final AtomicInteger subscriptionIds = new AtomicInteger();
+    private OpcUaSubscriptionManager serverSubscriptions;
+    private OpcUaClient client;
+    private SubscriptionManagerComp manager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        NodeIdResolver nodeIdResolver = mock(NodeIdResolver.class);
+        when(nodeIdResolver.isValid(any())).thenReturn(true);
+        when(nodeIdResolver.resolve(any(OpcUaClient.class), anyList())).thenAnswer(invocation -> {
+            List<String> nodeIds = invocation.getArgument(1);
+            return CompletableFuture.completedFuture(nodeIds.stream().map(id -> Optional.of(NodeId.parse(id))).toList());
+        });
+        OperationLimitsRegistry operationLimits = mock(OperationLimitsRegistry.class);
+        when(operationLimits.chunkSize(any(), eq(Operation.SUBSCRIBE), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(500));
+
+        serverSubscriptions = mock(OpcUaSubscriptionManager.class);
+        when(serverSubscriptions.createSubscription(anyDouble(), any(), any(), any(), anyBoolean(), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(serverSubscription()));
+        when(serverSubscriptions.deleteSubscription(any())).thenReturn(CompletableFuture.completedFuture(null));
+        client = mock(OpcUaClient.class);
+        when(client.getSubscriptionManager()).thenReturn(serverSubscriptions);
+
+        manager = new SubscriptionManagerComp(nodeIdResolver, operationLimits,
+                mock(LivenessTracker.class), mock(ClientLifecycle.class));
+        ReflectionTestUtils.setField(manager, "maxItemsPerSubscription", MAX_ITEMS_PER_SHARD);
+        ReflectionTestUtils.setField(manager, "createBatchSize", 500);
+    }
+
+    @Test
+    void itemsFillShardsInOrderAndOverflowIntoNewShards() throws Exception {
+        SubscriptionManagerComp.ManagedSubscription managed = create("n1", "n2", "n3", "n4", "n5");
+
+        assertEquals(List.of(2, 2, 1), shardSizes(managed));
+        verify(serverSubscriptions, times(3)).createSubscription(anyDouble(), any(), any(), any(), anyBoolean(), any());
+        for (String node : List.of("n1", "n2", "n3", "n4", "n5")) {
+            assertTrue(manager.isMonitored(CLIENT, nodeId(node)));
+        }
+    }
+
+    @Test
+    void addedItemsUseFreeCapacityBeforeCreatingShards() throws Exception {
+        SubscriptionManagerComp.ManagedSubscription managed = create("n1", "n2", "n3");
+
+        manager.addMonitoredItems(managed.getId(), List.of(item("n4"))).get(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2, 2), shardSizes(managed));
+        verify(serverSubscriptions, times(2)).createSubscription(anyDouble(), any(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void removingItemsMovesTheSmallestShardIntoTheOthers() throws Exception {
+        SubscriptionManagerComp.ManagedSubscription managed = create("n1", "n2", "n3", "n4");
+
+        manager.removeMonitoredItems(managed.getId(), List.of(nodeId("n1"), nodeId("n3"))).get(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2), shardSizes(managed));
+        verify(serverSubscriptions, times(1)).deleteSubscription(any());
+        assertFalse(manager.isMonitored(CLIENT, nodeId("n1")));
+        assertFalse(manager.isMonitored(CLIENT, nodeId("n3")));
+        assertTrue(manager.isMonitored(CLIENT, nodeId("n2")));
+        assertTrue(manager.isMonitored(CLIENT, nodeId("n4")));
+    }
+
+    @Test
+    void emptiedShardIsDeleted() throws Exception {
+        SubscriptionManagerComp.ManagedSubscription managed = create("n1", "n2", "n3");
+
+        manager.removeMonitoredItems(managed.getId(), List.of(nodeId("n3"))).get(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2), shardSizes(managed));
+        verify(serverSubscriptions, times(1)).deleteSubscription(any());
+        assertTrue(manager.isMonitored(CLIENT, nodeId("n1")));
+    }
+
+    private SubscriptionManagerComp.ManagedSubscription create(String... nodes) throws Exception {
+        List<SubscriptionDTO> items = Arrays.stream(nodes).map(this::item).toList();
+        return manager.createSubscription(CLIENT, client,
+                        SubscriptionParameters.of("test", null, null, null, null, null, null), items)
+                .get(1, TimeUnit.SECONDS);
+    }
+
+    private List<Integer> shardSizes(SubscriptionManagerComp.ManagedSubscription managed) {
+        return managed.getShards().stream().map(shard -> shard.getMonitoredItems().size()).toList();
+    }
+
+    private SubscriptionDTO item(String node) {
+        return new SubscriptionDTO(nodeId(node), null, null, null, null, null, null, null, null, null,
+                null, null, null, null, null);
+    }
+
+    private static String nodeId(String node) {
+        return "ns=2;s=" + node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private UaSubscription serverSubscription() {
+        UaSubscription subscription = mock(UaSubscription.class);
+        when(subscription.getSubscriptionId()).thenReturn(uint(subscriptionIds.incrementAndGet()));
+        when(subscription.nextClientHandle()).thenReturn(uint(1));
+        when(subscription.createMonitoredItems(any(TimestampsToReturn.class), anyList(),
+                any(UaSubscription.ItemCreationCallback.class)))
+                .thenAnswer(invocation -> {
+                    List<MonitoredItemCreateRequest> requests = invocation.getArgument(1);
+                    List<UaMonitoredItem> created = requests.stream().map(request -> {
+                        UaMonitoredItem item = mock(UaMonitoredItem.class);
+                        when(item.getStatusCode()).thenReturn(StatusCode.GOOD);
+                        return item;
+                    }).toList();
+                    return CompletableFuture.completedFuture(created);
+                });
+        when(subscription.deleteMonitoredItems(anyList())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                Collections.nCopies(((List<UaMonitoredItem>) invocation.getArgument(0)).size(), StatusCode.GOOD)));
+        return subscription;
+    }
+}
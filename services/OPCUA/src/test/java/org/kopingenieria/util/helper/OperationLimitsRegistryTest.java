@@ -0,0 +1,106 @@
+package org.kopingenieria.util.helper;
+
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfig;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.EndpointDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kopingenieria.domain.enums.communication.Operation;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OperationLimitsRegistryTest {
+
+    private static final int SERVER_MAX_NODES_PER_READ = 100;
+
+    private OpcUaClient client;
+    private OperationLimitsRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        EndpointDescription endpoint = mock(EndpointDescription.class);
+        when(endpoint.getEndpointUrl()).thenReturn("opc.tcp://localhost:4840");
+        OpcUaClientConfig config = mock(OpcUaClientConfig.class);
+        when(config.getEndpoint()).thenReturn(endpoint);
+        client = mock(OpcUaClient.class);
+        when(client.getConfig()).thenReturn(config);
+        when(client.readValues(anyDouble(), any(TimestampsToReturn.class), anyList())).thenAnswer(invocation -> {
+            List<NodeId> nodeIds = invocation.getArgument(2);
+            return CompletableFuture.completedFuture(nodeIds.stream()
+                    .map(nodeId -> nodeId.equals(Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerRead)
+                            ? new DataValue(new Variant(uint(SERVER_MAX_NODES_PER_READ)))
+                            : new DataValue(Variant.NULL_VALUE))
+                    .toList());
+        });
+
+        registry = new OperationLimitsRegistry(mock(ClientLifecycle.class));
+    }
+
+    @Test
+    void chunkSizeIsCappedByTheServerLimit() throws Exception {
+        assertEquals(SERVER_MAX_NODES_PER_READ, chunkSize(Operation.READ, 1000));
+        assertEquals(50, chunkSize(Operation.READ, 50));
+        assertEquals(1000, chunkSize(Operation.WRITE, 1000));
+        verify(client, times(1)).readValues(anyDouble(), any(TimestampsToReturn.class), anyList());
+    }
+
+    @Test
+    void backOffHalvesTheAttemptedChunkAndKeepsTheSmallest() throws Exception {
+        assertEquals(50, registry.backOff(client, Operation.READ, 100));
+        assertEquals(50, chunkSize(Operation.READ, 1000));
+
+        assertEquals(40, registry.backOff(client, Operation.READ, 80));
+        // Un rechazo posterior de un bloque mayor no vuelve a ampliar el tamaño
+        assertEquals(50, registry.backOff(client, Operation.READ, 100));
+        assertEquals(40, chunkSize(Operation.READ, 1000));
+        assertEquals(1000, chunkSize(Operation.WRITE, 1000));
+    }
+
+    @Test
+    void backOffNeverGoesBelowOneOperation() throws Exception {
+        assertEquals(1, registry.backOff(client, Operation.READ, 1));
+        assertEquals(1, chunkSize(Operation.READ, 1000));
+    }
+
+    @Test
+    void invalidateForgetsTheBackOff() throws Exception {
+        registry.backOff(client, Operation.READ, 100);
+
+        registry.invalidate(client);
+
+        assertEquals(SERVER_MAX_NODES_PER_READ, chunkSize(Operation.READ, 1000));
+    }
+
+    @Test
+    void recognisesTooManyOperationsThroughCompletionExceptions() {
+        UaException tooMany = new UaException(StatusCodes.Bad_TooManyOperations);
+
+        assertTrue(OperationLimitsRegistry.isTooManyOperations(new CompletionException(tooMany)));
+        assertFalse(OperationLimitsRegistry.isTooManyOperations(new UaException(StatusCodes.Bad_Timeout)));
+    }
+
+    private int chunkSize(Operation operation, int configured) throws Exception {
+        return registry.chunkSize(client, operation, configured).get(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,77 @@
+package org.kopingenieria.util.helper;
+
+import io.netty.util.Timeout;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WheelTimerTest {
+
+    private final WheelTimer timer = WheelTimer.shared();
+
+    @Test
+    void scheduledTaskRunsAfterTheDelay() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+
+        timer.schedule(ran::countDown, 20, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelledTaskNeverRuns() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+
+        Timeout timeout = timer.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        timeout.cancel();
+        Thread.sleep(150);
+
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void cancellingThePeriodicFutureStopsTheRepetitions() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch repeated = new CountDownLatch(3);
+
+        CompletableFuture<Void> periodic = timer.scheduleWithFixedDelay(() -> {
+            runs.incrementAndGet();
+            repeated.countDown();
+        }, 0, 20, TimeUnit.MILLISECONDS);
+        assertTrue(repeated.await(1, TimeUnit.SECONDS));
+        periodic.cancel(false);
+        // Una ejecucion ya en marcha al cancelar puede terminar, pero no programa otra
+        Thread.sleep(50);
+        int afterCancel = runs.get();
+        Thread.sleep(150);
+
+        assertEquals(afterCancel, runs.get());
+    }
+
+    @Test
+    void orTimeoutFailsAPendingFuture() {
+        CompletableFuture<String> future = timer.orTimeout(new CompletableFuture<>(), 20, TimeUnit.MILLISECONDS);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+    }
+
+    @Test
+    void orTimeoutLeavesACompletedFutureAlone() throws Exception {
+        CompletableFuture<String> future = timer.orTimeout(new CompletableFuture<>(), 50, TimeUnit.MILLISECONDS);
+        future.complete("valor");
+        Thread.sleep(100);
+
+        assertEquals("valor", future.get());
+    }
+}